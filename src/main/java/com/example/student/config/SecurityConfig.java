@@ -1,13 +1,20 @@
 package com.example.student.config;
 
+import com.example.student.security.BoundedPasswordEncoder;
 import com.example.student.security.JwtAuthenticationFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -17,12 +24,15 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,12 +48,25 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final UserDetailsService userDetailsService;
 
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${security.bcrypt.threads:4}")
+    private int bcryptThreads;
+
+    @Value("${security.bcrypt.queue-capacity:16}")
+    private int bcryptQueueCapacity;
+
+    @Value("${security.bcrypt.timeout:5000}")
+    private long bcryptTimeout;
+
     /**
      * 白名单路径（无需认证）
      */
     private static final String[] WHITE_LIST = {
             "/auth/login",
             "/auth/register",
+            "/auth/refresh",
             "/auth/forgot-password",
             "/auth/reset-password",
             "/auth/captcha",
@@ -66,6 +89,8 @@ public class SecurityConfig {
             
             // 配置请求授权
             .authorizeHttpRequests(auth -> auth
+                // 异步结果和错误页的再次分派已在首次请求时认证，JWT 过滤器不会在再次分派时执行
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 .requestMatchers(WHITE_LIST).permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 .anyRequest().authenticated()
@@ -115,6 +140,10 @@ public class SecurityConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder());
+        // 加密强度调整后，用户下次登录时自动按新强度重新加密
+        if (userDetailsService instanceof UserDetailsPasswordService passwordService) {
+            provider.setUserDetailsPasswordService(passwordService);
+        }
         return provider;
     }
 
@@ -125,6 +154,31 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength),
+                bcryptThreads, bcryptQueueCapacity, bcryptTimeout);
+    }
+
+    /**
+     * 方法级权限表达式中的 hasPermission 交由菜单权限位图校验；
+     * 静态 Bean 创建得早，权限校验器在首次校验时才获取，避免提前初始化其依赖
+     */
+    @Bean
+    public static MethodSecurityExpressionHandler methodSecurityExpressionHandler(
+            ObjectProvider<PermissionEvaluator> permissionEvaluator) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(new PermissionEvaluator() {
+            @Override
+            public boolean hasPermission(Authentication authentication, Object target, Object permission) {
+                return permissionEvaluator.getObject().hasPermission(authentication, target, permission);
+            }
+
+            @Override
+            public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+                                         Object permission) {
+                return permissionEvaluator.getObject()
+                        .hasPermission(authentication, targetId, targetType, permission);
+            }
+        });
+        return handler;
     }
 }
@@ -33,6 +33,15 @@ public class AuthController {
         return ResultVO.success("登录成功", response);
     }
 
+    /**
+     * 刷新令牌
+     */
+    @PostMapping("/refresh")
+    public ResultVO<LoginResponse> refresh(@RequestBody Map<String, String> request) {
+        String refreshToken = request.get("refreshToken");
+        return ResultVO.success("刷新成功", authService.refresh(refreshToken));
+    }
+
     /**
      * 用户注册
      */
@@ -86,8 +95,9 @@ public class AuthController {
      * 退出登录
      */
     @PostMapping("/logout")
-    public ResultVO<Void> logout() {
-        // JWT是无状态的，客户端删除token即可
+    public ResultVO<Void> logout(@RequestBody(required = false) Map<String, String> request) {
+        // 访问令牌由客户端删除，服务端吊销刷新令牌
+        authService.logout(request != null ? request.get("refreshToken") : null);
         return ResultVO.success("退出成功", null);
     }
 }
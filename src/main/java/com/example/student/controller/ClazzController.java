@@ -31,8 +31,23 @@ public class ClazzController {
             @RequestParam(defaultValue = "10") Integer size,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String grade,
-            @RequestParam(required = false) String department) {
-        return ResultVO.success(clazzService.findPage(page, size, keyword, grade, department));
+            @RequestParam(required = false) String department,
+            @RequestParam(defaultValue = "false") boolean estimate) {
+        return ResultVO.success(clazzService.findPage(page, size, keyword, grade, department, estimate));
+    }
+
+    /**
+     * 游标分页查询班级，首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/cursor")
+    public ResultVO<PageVO<ClazzResponse>> findCursorPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String grade,
+            @RequestParam(required = false) String department,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResultVO.success(clazzService.findCursorPage(cursor, size, keyword, grade, department, withTotal));
     }
 
     /**
@@ -32,8 +32,24 @@ public class CourseController {
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Integer courseType,
             @RequestParam(required = false) Long teacherId,
-            @RequestParam(required = false) String semester) {
-        return ResultVO.success(courseService.findPage(page, size, keyword, courseType, teacherId, semester));
+            @RequestParam(required = false) String semester,
+            @RequestParam(defaultValue = "false") boolean estimate) {
+        return ResultVO.success(courseService.findPage(page, size, keyword, courseType, teacherId, semester, estimate));
+    }
+
+    /**
+     * 游标分页查询课程，首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/cursor")
+    public ResultVO<PageVO<CourseResponse>> findCursorPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Integer courseType,
+            @RequestParam(required = false) Long teacherId,
+            @RequestParam(required = false) String semester,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResultVO.success(courseService.findCursorPage(cursor, size, keyword, courseType, teacherId, semester, withTotal));
     }
 
     /**
@@ -0,0 +1,73 @@
+package com.example.student.controller;
+
+import com.example.student.service.ExportService;
+import com.example.student.util.SheetWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 数据导出控制器
+ * format 支持 csv、xlsx、ndjson，结果直接流式写入响应
+ */
+@RestController
+@RequestMapping("/exports")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    /**
+     * 导出学生
+     */
+    @GetMapping("/students")
+    public void exportStudents(@RequestParam(defaultValue = "csv") String format,
+                               HttpServletResponse response) throws IOException {
+        SheetWriter.Format sheetFormat = SheetWriter.Format.of(format);
+        prepare(response, sheetFormat, "学生");
+        exportService.exportStudents(sheetFormat, response.getOutputStream());
+    }
+
+    /**
+     * 导出成绩
+     */
+    @GetMapping("/scores")
+    public void exportScores(@RequestParam(defaultValue = "csv") String format,
+                             @RequestParam(required = false) Long courseId,
+                             @RequestParam(required = false) String semester,
+                             HttpServletResponse response) throws IOException {
+        SheetWriter.Format sheetFormat = SheetWriter.Format.of(format);
+        prepare(response, sheetFormat, "成绩");
+        exportService.exportScores(sheetFormat, response.getOutputStream(), courseId, semester);
+    }
+
+    /**
+     * 导出课程
+     */
+    @GetMapping("/courses")
+    public void exportCourses(@RequestParam(defaultValue = "csv") String format,
+                              HttpServletResponse response) throws IOException {
+        SheetWriter.Format sheetFormat = SheetWriter.Format.of(format);
+        prepare(response, sheetFormat, "课程");
+        exportService.exportCourses(sheetFormat, response.getOutputStream());
+    }
+
+    private void prepare(HttpServletResponse response, SheetWriter.Format format, String name) {
+        String filename = name + "-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE)
+                + "." + format.getExtension();
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(filename, StandardCharsets.UTF_8)
+                .build()
+                .toString());
+    }
+}
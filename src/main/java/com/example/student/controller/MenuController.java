@@ -4,10 +4,13 @@ import com.example.student.dto.request.MenuRequest;
 import com.example.student.dto.response.MenuResponse;
 import com.example.student.service.MenuService;
 import com.example.student.util.ResultVO;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -23,10 +26,17 @@ public class MenuController {
 
     /**
      * 获取当前用户的菜单
+     * 带 ETag 返回，浏览器每次重新验证，菜单未变时返回 304 不再下发菜单树
      */
     @GetMapping("/current")
-    public ResultVO<List<MenuResponse>> getCurrentUserMenus() {
-        return ResultVO.success(menuService.getCurrentUserMenus());
+    public ResultVO<List<MenuResponse>> getCurrentUserMenus(WebRequest webRequest, HttpServletResponse response) {
+        MenuService.MenuTree tree = menuService.getCurrentUserMenuTree();
+        // 同一地址按角色返回不同内容，只允许浏览器私有缓存
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (webRequest.checkNotModified(tree.etag())) {
+            return null;
+        }
+        return ResultVO.success(tree.menus());
     }
 
     /**
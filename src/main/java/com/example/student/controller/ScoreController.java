@@ -1,7 +1,10 @@
 package com.example.student.controller;
 
 import com.example.student.dto.request.ScoreRequest;
+import com.example.student.dto.response.BatchScoreResult;
 import com.example.student.dto.response.ScoreResponse;
+import com.example.student.dto.response.SelectionTicketResponse;
+import com.example.student.service.CourseSelectionQueue;
 import com.example.student.service.ScoreService;
 import com.example.student.util.PageVO;
 import com.example.student.util.ResultVO;
@@ -12,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 成绩管理控制器
@@ -22,6 +26,7 @@ import java.util.Map;
 public class ScoreController {
 
     private final ScoreService scoreService;
+    private final CourseSelectionQueue courseSelectionQueue;
 
     /**
      * 分页查询成绩
@@ -32,8 +37,23 @@ public class ScoreController {
             @RequestParam(defaultValue = "10") Integer size,
             @RequestParam(required = false) Long studentId,
             @RequestParam(required = false) Long courseId,
-            @RequestParam(required = false) String semester) {
-        return ResultVO.success(scoreService.findPage(page, size, studentId, courseId, semester));
+            @RequestParam(required = false) String semester,
+            @RequestParam(defaultValue = "false") boolean estimate) {
+        return ResultVO.success(scoreService.findPage(page, size, studentId, courseId, semester, estimate));
+    }
+
+    /**
+     * 游标分页查询成绩，首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/cursor")
+    public ResultVO<PageVO<ScoreResponse>> findCursorPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) String semester,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResultVO.success(scoreService.findCursorPage(cursor, size, studentId, courseId, semester, withTotal));
     }
 
     /**
@@ -70,6 +90,26 @@ public class ScoreController {
         return ResultVO.success("选课成功", scoreService.selectCourse(studentId, courseId));
     }
 
+    /**
+     * 排队选课，返回排队凭据
+     */
+    @PostMapping("/select/queue")
+    public ResultVO<SelectionTicketResponse> enqueueSelection(@RequestBody Map<String, Long> body) {
+        Long studentId = body.get("studentId");
+        Long courseId = body.get("courseId");
+        return ResultVO.success("已进入选课队列", courseSelectionQueue.submit(studentId, courseId));
+    }
+
+    /**
+     * 查询排队选课结果，wait 为长轮询等待时间（毫秒）
+     */
+    @GetMapping("/select/tickets/{ticketId}")
+    public CompletableFuture<ResultVO<SelectionTicketResponse>> getSelectionTicket(
+            @PathVariable String ticketId,
+            @RequestParam(defaultValue = "0") Long wait) {
+        return courseSelectionQueue.await(ticketId, wait).thenApply(ResultVO::success);
+    }
+
     /**
      * 退选课程
      */
@@ -95,9 +135,8 @@ public class ScoreController {
      */
     @PostMapping("/batch-input")
     @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
-    public ResultVO<Void> batchInputScore(@RequestBody List<ScoreRequest> requests) {
-        scoreService.batchInputScore(requests);
-        return ResultVO.success("批量录入成功", null);
+    public ResultVO<BatchScoreResult> batchInputScore(@RequestBody List<ScoreRequest> requests) {
+        return ResultVO.success("批量录入完成", scoreService.batchInputScore(requests));
     }
 
     /**
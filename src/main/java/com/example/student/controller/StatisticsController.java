@@ -1,6 +1,10 @@
 package com.example.student.controller;
 
 import com.example.student.dto.response.DashboardStats;
+import com.example.student.dto.response.ScoreAnalytics;
+import com.example.student.dto.response.StudentRanking;
+import com.example.student.service.RankingService;
+import com.example.student.service.ScoreAnalyticsService;
 import com.example.student.service.StatisticsService;
 import com.example.student.util.ResultVO;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +21,8 @@ import java.util.List;
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final ScoreAnalyticsService scoreAnalyticsService;
+    private final RankingService rankingService;
 
     /**
      * 获取仪表盘统计数据
@@ -58,6 +64,17 @@ public class StatisticsController {
         return ResultVO.success(statisticsService.getScoreDistribution(courseId));
     }
 
+    /**
+     * 课程成绩分析：均值、标准差、分位数、分段和及格率
+     */
+    @GetMapping("/scores/analytics/{courseId}")
+    public ResultVO<ScoreAnalytics> getScoreAnalytics(
+            @PathVariable Long courseId,
+            @RequestParam(required = false) String semester,
+            @RequestParam(defaultValue = "10") Integer bins) {
+        return ResultVO.success(scoreAnalyticsService.analyze(courseId, semester, bins));
+    }
+
     /**
      * 教师院系分布
      */
@@ -73,4 +90,23 @@ public class StatisticsController {
     public ResultVO<List<DashboardStats.ChartData>> getStudentScores(@PathVariable Long studentId) {
         return ResultVO.success(statisticsService.getStudentScores(studentId));
     }
+
+    /**
+     * 学生绩点及班级、专业、年级排名
+     */
+    @GetMapping("/rankings/student/{studentId}")
+    public ResultVO<StudentRanking> getStudentRanking(@PathVariable Long studentId) {
+        return ResultVO.success(rankingService.getStudentRanking(studentId));
+    }
+
+    /**
+     * 绩点前 N 名，level 为 class/major/grade，key 为班级ID、专业名称或年级
+     */
+    @GetMapping("/rankings/top")
+    public ResultVO<List<StudentRanking>> getTopRankings(
+            @RequestParam String level,
+            @RequestParam String key,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        return ResultVO.success(rankingService.getTop(RankingService.Level.of(level), key, limit));
+    }
 }
@@ -1,7 +1,9 @@
 package com.example.student.controller;
 
 import com.example.student.dto.request.StudentRequest;
+import com.example.student.dto.response.StudentImportResponse;
 import com.example.student.dto.response.StudentResponse;
+import com.example.student.service.StudentImportService;
 import com.example.student.service.StudentService;
 import com.example.student.util.PageVO;
 import com.example.student.util.ResultVO;
@@ -9,6 +11,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
@@ -21,6 +24,7 @@ import java.util.List;
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentImportService studentImportService;
 
     /**
      * 分页查询学生
@@ -31,8 +35,23 @@ public class StudentController {
             @RequestParam(defaultValue = "10") Integer size,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long classId,
-            @RequestParam(required = false) Integer status) {
-        return ResultVO.success(studentService.findPage(page, size, keyword, classId, status));
+            @RequestParam(required = false) Integer status,
+            @RequestParam(defaultValue = "false") boolean estimate) {
+        return ResultVO.success(studentService.findPage(page, size, keyword, classId, status, estimate));
+    }
+
+    /**
+     * 游标分页查询学生，首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/cursor")
+    public ResultVO<PageVO<StudentResponse>> findCursorPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long classId,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResultVO.success(studentService.findCursorPage(cursor, size, keyword, classId, status, withTotal));
     }
 
     /**
@@ -112,4 +131,24 @@ public class StudentController {
         studentService.batchDelete(ids);
         return ResultVO.success("批量删除成功", null);
     }
+
+    /**
+     * 批量导入学生（CSV/XLSX），返回导入任务
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    public ResultVO<StudentImportResponse> importStudents(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") Boolean createAccount) {
+        return ResultVO.success("导入任务已提交", studentImportService.submit(file, createAccount));
+    }
+
+    /**
+     * 查询导入进度和错误明细
+     */
+    @GetMapping("/import/{taskId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    public ResultVO<StudentImportResponse> getImportTask(@PathVariable String taskId) {
+        return ResultVO.success(studentImportService.getTask(taskId));
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.student.controller;
+
+import com.example.student.dto.response.SuggestionResponse;
+import com.example.student.service.SuggestIndex;
+import com.example.student.util.ResultVO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 输入联想控制器
+ */
+@RestController
+@RequestMapping("/suggest")
+@RequiredArgsConstructor
+public class SuggestController {
+
+    private final SuggestIndex suggestIndex;
+
+    /**
+     * 按前缀联想学生、班级、课程，type 可选 student、class、course
+     */
+    @GetMapping
+    public ResultVO<List<SuggestionResponse>> suggest(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        return ResultVO.success(suggestIndex.suggest(q, SuggestIndex.Type.of(type), limit));
+    }
+}
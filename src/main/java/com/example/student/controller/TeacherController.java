@@ -31,8 +31,9 @@ public class TeacherController {
             @RequestParam(defaultValue = "10") Integer size,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String department,
-            @RequestParam(required = false) Integer status) {
-        return ResultVO.success(teacherService.findPage(page, size, keyword, department, status));
+            @RequestParam(required = false) Integer status,
+            @RequestParam(defaultValue = "false") boolean estimate) {
+        return ResultVO.success(teacherService.findPage(page, size, keyword, department, status, estimate));
     }
 
     /**
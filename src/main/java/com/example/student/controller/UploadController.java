@@ -0,0 +1,34 @@
+package com.example.student.controller;
+
+import com.example.student.service.FileServingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * 上传文件访问控制器
+ */
+@RestController
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final String UPLOAD_PATTERN = "/uploads/**";
+
+    private final FileServingService fileServingService;
+
+    /**
+     * 下载上传的文件，支持 Range 和条件请求
+     */
+    @GetMapping(UPLOAD_PATTERN)
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String relativePath = new AntPathMatcher().extractPathWithinPattern(UPLOAD_PATTERN, path);
+        fileServingService.serve(relativePath, request, response);
+    }
+}
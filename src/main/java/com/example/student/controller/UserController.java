@@ -33,8 +33,24 @@ public class UserController {
             @RequestParam(defaultValue = "10") Integer size,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Integer userType,
-            @RequestParam(required = false) Integer status) {
-        return ResultVO.success(userService.findPage(page, size, keyword, userType, status));
+            @RequestParam(required = false) Integer status,
+            @RequestParam(defaultValue = "false") boolean estimate) {
+        return ResultVO.success(userService.findPage(page, size, keyword, userType, status, estimate));
+    }
+
+    /**
+     * 游标分页查询用户，首页不传 cursor，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResultVO<PageVO<UserResponse>> findCursorPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Integer userType,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResultVO.success(userService.findCursorPage(cursor, size, keyword, userType, status, withTotal));
     }
 
     /**
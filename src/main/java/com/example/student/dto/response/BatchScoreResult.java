@@ -0,0 +1,37 @@
+package com.example.student.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 批量录入成绩结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchScoreResult {
+
+    private Integer total;      // 提交行数
+    private Integer succeeded;  // 成功行数
+    private Integer failed;     // 失败行数
+    private List<RowResult> rows;  // 逐行结果，与提交顺序一致
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+        private Integer index;       // 提交时的行号（从0开始）
+        private Long id;             // 成绩记录ID
+        private Boolean success;
+        private String message;
+        private BigDecimal totalScore;
+        private BigDecimal gpa;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.student.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 课程成绩分析响应DTO
+ * 只统计已确认的成绩
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreAnalytics {
+
+    private Long courseId;
+    private String semester;     // 为空时统计该课程所有学期
+    private Integer count;       // 参与统计的成绩数
+    private Double mean;         // 平均分
+    private Double stdDev;       // 标准差（总体）
+    private Double min;
+    private Double max;
+    private Double median;       // 中位数
+    private Double p10;
+    private Double p25;
+    private Double p75;
+    private Double p90;
+    private Integer passCount;   // 及格人数（>= 60）
+    private Double passRate;     // 及格率（百分比）
+    private List<Bin> histogram; // 成绩分段
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bin {
+        private Double from;     // 含
+        private Double to;       // 不含，最后一段包含满分
+        private Integer count;
+    }
+}
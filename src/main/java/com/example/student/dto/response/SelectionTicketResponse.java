@@ -0,0 +1,27 @@
+package com.example.student.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 排队选课凭据响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SelectionTicketResponse {
+
+    private String ticketId;
+    private Long studentId;
+    private Long courseId;
+    private String status;   // PENDING: 排队中, SUCCESS: 选课成功, FAILED: 选课失败
+    private String message;
+    private Long scoreId;
+    private Integer position;  // 提交时的排队位置
+    private LocalDateTime createdAt;
+}
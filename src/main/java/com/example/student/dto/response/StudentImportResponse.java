@@ -0,0 +1,40 @@
+package com.example.student.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 学生导入任务进度响应
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportResponse {
+
+    private String taskId;
+    private String fileName;
+    private String status;       // RUNNING: 导入中, COMPLETED: 已完成, FAILED: 导入失败
+    private String message;
+    private Integer processed;   // 已读取行数
+    private Integer succeeded;   // 导入成功行数
+    private Integer failed;      // 导入失败行数
+    private List<RowError> errors;  // 错误明细，超出上限时截断
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private Integer row;         // 文件中的行号
+        private String studentNo;
+        private String message;
+    }
+}
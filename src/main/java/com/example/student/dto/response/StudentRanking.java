@@ -0,0 +1,34 @@
+package com.example.student.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 学生排名响应DTO
+ * 只统计已确认的成绩，绩点按学分加权；名次按绩点计，绩点相同名次相同
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentRanking {
+
+    private Long studentId;
+    private String studentNo;
+    private String name;
+    private String className;
+    private BigDecimal gpa;          // 学分加权平均绩点
+    private BigDecimal averageScore; // 平均总成绩
+    private BigDecimal credits;      // 已获学分
+    private Integer courseCount;     // 已确认成绩的课程数
+    private Integer classRank;
+    private Integer classSize;       // 班级内参与排名的人数
+    private Integer majorRank;
+    private Integer majorSize;
+    private Integer gradeRank;
+    private Integer gradeSize;
+}
@@ -0,0 +1,21 @@
+package com.example.student.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 输入联想响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+
+    private String type;  // student: 学生, class: 班级, course: 课程
+    private Long id;
+    private String name;  // 姓名或名称
+    private String code;  // 学号或编号
+}
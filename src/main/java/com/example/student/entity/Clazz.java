@@ -1,6 +1,7 @@
 package com.example.student.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,7 +17,11 @@ import lombok.EqualsAndHashCode;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "edu_class")
+@SQLRestriction("is_deleted = false")
+@Table(name = "edu_class", indexes = {
+    @Index(name = "idx_class_deleted_grade", columnList = "is_deleted, grade"),
+    @Index(name = "idx_class_deleted_created", columnList = "is_deleted, created_at, id")
+})
 public class Clazz extends BaseEntity {
 
     @Column(name = "class_name", nullable = false, length = 50)
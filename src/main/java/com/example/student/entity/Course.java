@@ -1,6 +1,7 @@
 package com.example.student.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,7 +19,12 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "edu_course")
+@SQLRestriction("is_deleted = false")
+@Table(name = "edu_course", indexes = {
+    @Index(name = "idx_course_deleted_teacher", columnList = "is_deleted, teacher_id"),
+    @Index(name = "idx_course_deleted_semester", columnList = "is_deleted, semester"),
+    @Index(name = "idx_course_deleted_created", columnList = "is_deleted, created_at, id")
+})
 public class Course extends BaseEntity {
 
     @Column(name = "course_code", nullable = false, unique = true, length = 30)
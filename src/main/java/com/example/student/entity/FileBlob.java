@@ -0,0 +1,44 @@
+package com.example.student.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 文件内容实体 - 按内容摘要存储的上传文件，同一分类下内容和扩展名相同的文件只保存一份
+ * 引用减到 0 时记录直接物理删除，不使用 is_deleted：URL 有唯一索引，
+ * 软删除的记录会占住 URL，相同内容再次上传时无法登记
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "sys_file_blob", indexes = {
+    @Index(name = "idx_file_blob_digest", columnList = "digest"),
+    @Index(name = "uk_file_blob_url", columnList = "url", unique = true)
+})
+public class FileBlob extends BaseEntity {
+
+    @Column(name = "digest", nullable = false, length = 64)
+    private String digest; // SHA-256 摘要（十六进制）
+
+    @Column(name = "url", nullable = false, length = 255)
+    private String url; // 访问URL
+
+    @Column(name = "storage_path", nullable = false, length = 255)
+    private String storagePath; // 相对上传目录的存储路径
+
+    @Column(name = "file_size")
+    private Long fileSize; // 文件大小（字节）
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 1; // 引用次数，减到 0 时删除文件
+}
@@ -1,6 +1,7 @@
 package com.example.student.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +20,7 @@ import java.util.Set;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@SQLRestriction("is_deleted = false")
 @Table(name = "sys_role")
 public class Role extends BaseEntity {
 
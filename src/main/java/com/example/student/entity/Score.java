@@ -1,6 +1,7 @@
 package com.example.student.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,8 +19,12 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@SQLRestriction("is_deleted = false")
 @Table(name = "edu_score", indexes = {
-    @Index(name = "idx_student_course", columnList = "student_id, course_id")
+    @Index(name = "idx_student_course", columnList = "student_id, course_id"),
+    @Index(name = "idx_score_deleted_student", columnList = "is_deleted, student_id"),
+    @Index(name = "idx_score_deleted_course", columnList = "is_deleted, course_id"),
+    @Index(name = "idx_score_deleted_created", columnList = "is_deleted, created_at, id")
 })
 public class Score extends BaseEntity {
 
@@ -1,6 +1,7 @@
 package com.example.student.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,9 +19,12 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@SQLRestriction("is_deleted = false")
 @Table(name = "edu_student", indexes = {
     @Index(name = "idx_student_no", columnList = "student_no"),
-    @Index(name = "idx_class_id", columnList = "class_id")
+    @Index(name = "idx_class_id", columnList = "class_id"),
+    @Index(name = "idx_student_deleted_class", columnList = "is_deleted, class_id"),
+    @Index(name = "idx_student_deleted_created", columnList = "is_deleted, created_at, id")
 })
 public class Student extends BaseEntity {
 
@@ -1,6 +1,7 @@
 package com.example.student.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,7 +19,10 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "edu_teacher")
+@SQLRestriction("is_deleted = false")
+@Table(name = "edu_teacher", indexes = {
+    @Index(name = "idx_teacher_deleted_department", columnList = "is_deleted, department")
+})
 public class Teacher extends BaseEntity {
 
     @Column(name = "teacher_no", nullable = false, unique = true, length = 30)
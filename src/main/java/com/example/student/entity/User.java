@@ -1,6 +1,7 @@
 package com.example.student.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,9 +17,12 @@ import lombok.EqualsAndHashCode;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@SQLRestriction("is_deleted = false")
 @Table(name = "sys_user", indexes = {
     @Index(name = "idx_username", columnList = "username"),
-    @Index(name = "idx_email", columnList = "email")
+    @Index(name = "idx_email", columnList = "email"),
+    @Index(name = "idx_user_deleted_role", columnList = "is_deleted, role_id"),
+    @Index(name = "idx_user_deleted_created", columnList = "is_deleted, created_at, id")
 })
 public class User extends BaseEntity {
 
@@ -59,6 +63,10 @@ public class User extends BaseEntity {
     @Column(name = "last_login_ip", length = 50)
     private String lastLoginIp;
 
+    // 只由 UserRepository.incrementTokenVersion* 修改，保存实体时不写回，避免旧值覆盖已提交的吊销
+    @Column(name = "token_version", insertable = false, updatable = false)
+    private Integer tokenVersion; // 令牌版本，递增后已签发的令牌失效，为空时视为 0
+
     // 验证码相关（用于密码重置）
     @Column(name = "verify_code", length = 10)
     private String verifyCode;
@@ -1,5 +1,6 @@
 package com.example.student.exception;
 
+import com.example.student.security.PasswordVerificationUnavailableException;
 import com.example.student.util.ResultVO;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
@@ -90,6 +91,16 @@ public class GlobalExceptionHandler {
         return ResultVO.unauthorized("用户名或密码错误");
     }
 
+    /**
+     * 密码校验繁忙异常处理
+     */
+    @ExceptionHandler(PasswordVerificationUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResultVO<Void> handlePasswordVerificationUnavailableException(PasswordVerificationUnavailableException e) {
+        log.warn("密码校验繁忙: {}", e.getMessage());
+        return ResultVO.error(503, e.getMessage());
+    }
+
     /**
      * 访问拒绝异常处理
      */
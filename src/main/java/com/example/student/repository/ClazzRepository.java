@@ -17,7 +17,15 @@ public interface ClazzRepository extends JpaRepository<Clazz, Long>, JpaSpecific
 
     Optional<Clazz> findByClassCode(String classCode);
 
-    boolean existsByClassCode(String classCode);
+    /**
+     * 唯一性校验包含已删除的记录，与数据库唯一约束保持一致
+     */
+    @Query(value = "SELECT COUNT(*) FROM edu_class WHERE class_code = ?1", nativeQuery = true)
+    long countByClassCodeIncludingDeleted(String classCode);
+
+    default boolean existsByClassCode(String classCode) {
+        return countByClassCodeIncludingDeleted(classCode) > 0;
+    }
 
     List<Clazz> findByGrade(String grade);
 
@@ -25,12 +33,15 @@ public interface ClazzRepository extends JpaRepository<Clazz, Long>, JpaSpecific
 
     List<Clazz> findByMajor(String major);
 
-    @Query("SELECT c FROM Clazz c WHERE c.status = 1 AND c.isDeleted = false")
+    @Query("SELECT c FROM Clazz c WHERE c.status = 1")
     List<Clazz> findAllActiveClasses();
 
-    @Query("SELECT COUNT(c) FROM Clazz c WHERE c.isDeleted = false")
+    @Query("SELECT COUNT(c) FROM Clazz c")
     long countAllClasses();
 
-    @Query("SELECT c.department, COUNT(c) FROM Clazz c WHERE c.isDeleted = false GROUP BY c.department")
+    @Query("SELECT c.id, c.className FROM Clazz c")
+    List<Object[]> findAllClassNames();
+
+    @Query("SELECT c.department, COUNT(c) FROM Clazz c GROUP BY c.department")
     List<Object[]> countClassesByDepartment();
 }
@@ -1,13 +1,19 @@
 package com.example.student.repository;
 
+import com.example.student.dto.response.CourseResponse;
 import com.example.student.entity.Course;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 课程数据访问接口
@@ -17,7 +23,15 @@ public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecif
 
     Optional<Course> findByCourseCode(String courseCode);
 
-    boolean existsByCourseCode(String courseCode);
+    /**
+     * 唯一性校验包含已删除的记录，与数据库唯一约束保持一致
+     */
+    @Query(value = "SELECT COUNT(*) FROM edu_course WHERE course_code = ?1", nativeQuery = true)
+    long countByCourseCodeIncludingDeleted(String courseCode);
+
+    default boolean existsByCourseCode(String courseCode) {
+        return countByCourseCodeIncludingDeleted(courseCode) > 0;
+    }
 
     List<Course> findByTeacherId(Long teacherId);
 
@@ -25,18 +39,28 @@ public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecif
 
     List<Course> findByCourseType(Integer courseType);
 
-    @Query("SELECT c FROM Course c WHERE c.courseName LIKE %?1% OR c.courseCode LIKE %?1%")
-    List<Course> searchByKeyword(String keyword);
+    @Query("SELECT c FROM Course c WHERE c.courseName LIKE %?1% OR c.courseCode LIKE %?1% ORDER BY c.id DESC")
+    List<Course> searchByKeyword(String keyword, Pageable pageable);
 
     @Query("SELECT c FROM Course c WHERE c.status = 1 AND c.currentStudents < c.maxStudents")
     List<Course> findAvailableCourses();
 
-    @Query("SELECT COUNT(c) FROM Course c WHERE c.isDeleted = false")
+    @Query("SELECT c.id, c.maxStudents FROM Course c")
+    List<Object[]> findSeatCapacities();
+
+    @Query("SELECT COUNT(c) FROM Course c")
     long countAllCourses();
 
-    @Query("SELECT c.courseType, COUNT(c) FROM Course c WHERE c.isDeleted = false GROUP BY c.courseType")
+    @Query("SELECT c.courseType, COUNT(c) FROM Course c GROUP BY c.courseType")
     List<Object[]> countCoursesByType();
 
-    @Query("SELECT c.department, COUNT(c) FROM Course c WHERE c.isDeleted = false GROUP BY c.department")
+    @Query("SELECT c.department, COUNT(c) FROM Course c GROUP BY c.department")
     List<Object[]> countCoursesByDepartment();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.example.student.dto.response.CourseResponse(c.id, c.courseCode, c.courseName, c.credit, " +
+           "c.hours, c.courseType, t.id, t.name, c.department, c.semester, c.maxStudents, c.currentStudents, " +
+           "c.description, c.status, c.createdAt) " +
+           "FROM Course c LEFT JOIN c.teacher t ORDER BY c.id")
+    Stream<CourseResponse> streamAllForExport();
 }
@@ -0,0 +1,37 @@
+package com.example.student.repository;
+
+import com.example.student.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 文件内容数据访问接口
+ */
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, Long> {
+
+    Optional<FileBlob> findByUrl(String url);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount + 1 WHERE b.id = ?1")
+    int incrementRefCount(Long id);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - 1 WHERE b.id = ?1 AND b.refCount > 0")
+    int decrementRefCount(Long id);
+
+    /**
+     * 引用次数已为 0 时删除记录，返回删除的行数
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM FileBlob b WHERE b.id = ?1 AND b.refCount = 0")
+    int deleteIfUnreferenced(Long id);
+}
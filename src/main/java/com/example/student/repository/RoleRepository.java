@@ -2,6 +2,7 @@ package com.example.student.repository;
 
 import com.example.student.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -14,5 +15,13 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
 
     Optional<Role> findByRoleCode(String roleCode);
 
-    boolean existsByRoleCode(String roleCode);
+    /**
+     * 唯一性校验包含已删除的记录，与数据库唯一约束保持一致
+     */
+    @Query(value = "SELECT COUNT(*) FROM sys_role WHERE role_code = ?1", nativeQuery = true)
+    long countByRoleCodeIncludingDeleted(String roleCode);
+
+    default boolean existsByRoleCode(String roleCode) {
+        return countByRoleCodeIncludingDeleted(roleCode) > 0;
+    }
 }
@@ -1,14 +1,23 @@
 package com.example.student.repository;
 
+import com.example.student.dto.response.ScoreResponse;
 import com.example.student.entity.Score;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 成绩数据访问接口
@@ -16,16 +25,36 @@ import java.util.Optional;
 @Repository
 public interface ScoreRepository extends JpaRepository<Score, Long>, JpaSpecificationExecutor<Score> {
 
+    /**
+     * 分页查询时一并抓取学生和课程，计数查询不受影响
+     */
+    @Override
+    @EntityGraph(attributePaths = {"student", "course"})
+    Page<Score> findAll(Specification<Score> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"student", "course"})
+    Optional<Score> findById(Long id);
+
+    @EntityGraph(attributePaths = {"student", "course"})
     List<Score> findByStudentId(Long studentId);
 
+    @EntityGraph(attributePaths = {"student", "course"})
     List<Score> findByCourseId(Long courseId);
 
+    @EntityGraph(attributePaths = {"student", "course"})
     Optional<Score> findByStudentIdAndCourseId(Long studentId, Long courseId);
 
     boolean existsByStudentIdAndCourseId(Long studentId, Long courseId);
 
     List<Score> findByStudentIdAndSemester(Long studentId, String semester);
 
+    @Query("SELECT s.course.id, s.student.id FROM Score s")
+    List<Object[]> findAllSelections();
+
+    @Query("SELECT s.student.id FROM Score s WHERE s.course.id = ?1")
+    List<Long> findStudentIdsByCourseId(Long courseId);
+
     @Query("SELECT AVG(s.totalScore) FROM Score s WHERE s.student.id = ?1 AND s.status = 2")
     BigDecimal calculateAverageScore(Long studentId);
 
@@ -52,4 +81,12 @@ public interface ScoreRepository extends JpaRepository<Score, Long>, JpaSpecific
            "SUM(CASE WHEN s.totalScore < 60 THEN 1 ELSE 0 END) " +
            "FROM Score s WHERE s.course.id = ?1 AND s.status = 2")
     List<Object[]> getScoreDistribution(Long courseId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.example.student.dto.response.ScoreResponse(s.id, st.id, st.studentNo, st.name, " +
+           "c.id, c.courseCode, c.courseName, c.credit, s.usualScore, s.midtermScore, s.finalScore, " +
+           "s.totalScore, s.gpa, s.semester, s.status, s.remark, s.createdAt) " +
+           "FROM Score s LEFT JOIN s.student st LEFT JOIN s.course c " +
+           "WHERE (?1 IS NULL OR s.course.id = ?1) AND (?2 IS NULL OR s.semester = ?2) ORDER BY s.id")
+    Stream<ScoreResponse> streamForExport(Long courseId, String semester);
 }
@@ -1,15 +1,20 @@
 package com.example.student.repository;
 
+import com.example.student.dto.response.StudentResponse;
 import com.example.student.entity.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 学生数据访问接口
@@ -19,7 +24,18 @@ public interface StudentRepository extends JpaRepository<Student, Long>, JpaSpec
 
     Optional<Student> findByStudentNo(String studentNo);
 
-    boolean existsByStudentNo(String studentNo);
+    /**
+     * 唯一性校验包含已删除的记录，与数据库唯一约束保持一致
+     */
+    @Query(value = "SELECT COUNT(*) FROM edu_student WHERE student_no = ?1", nativeQuery = true)
+    long countByStudentNoIncludingDeleted(String studentNo);
+
+    default boolean existsByStudentNo(String studentNo) {
+        return countByStudentNoIncludingDeleted(studentNo) > 0;
+    }
+
+    @Query(value = "SELECT student_no FROM edu_student", nativeQuery = true)
+    List<String> findAllStudentNos();
 
     Optional<Student> findByUserId(Long userId);
 
@@ -27,18 +43,28 @@ public interface StudentRepository extends JpaRepository<Student, Long>, JpaSpec
 
     Page<Student> findByClazzId(Long classId, Pageable pageable);
 
-    @Query("SELECT s FROM Student s WHERE s.name LIKE %?1% OR s.studentNo LIKE %?1%")
-    List<Student> searchByKeyword(String keyword);
+    @Query("SELECT s FROM Student s WHERE s.name LIKE %?1% OR s.studentNo LIKE %?1% ORDER BY s.id DESC")
+    List<Student> searchByKeyword(String keyword, Pageable pageable);
 
-    @Query("SELECT COUNT(s) FROM Student s WHERE s.status = 1 AND s.isDeleted = false")
+    @Query("SELECT COUNT(s) FROM Student s WHERE s.status = 1")
     long countActiveStudents();
 
-    @Query("SELECT COUNT(s) FROM Student s WHERE s.clazz.id = ?1 AND s.isDeleted = false")
+    @Query("SELECT COUNT(s) FROM Student s WHERE s.clazz.id = ?1")
     long countByClassId(Long classId);
 
-    @Query("SELECT s.clazz.className, COUNT(s) FROM Student s WHERE s.isDeleted = false GROUP BY s.clazz.id, s.clazz.className")
+    @Query("SELECT s.clazz.className, COUNT(s) FROM Student s GROUP BY s.clazz.id, s.clazz.className")
     List<Object[]> countStudentsByClass();
 
-    @Query("SELECT s.gender, COUNT(s) FROM Student s WHERE s.isDeleted = false GROUP BY s.gender")
+    @Query("SELECT s.gender, COUNT(s) FROM Student s GROUP BY s.gender")
     List<Object[]> countStudentsByGender();
+
+    @Query("SELECT s.clazz.id, COUNT(s) FROM Student s WHERE s.clazz IS NOT NULL GROUP BY s.clazz.id")
+    List<Object[]> countStudentsByClassId();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.example.student.dto.response.StudentResponse(s.id, s.studentNo, s.name, s.gender, " +
+           "s.birthDate, s.idCard, s.phone, s.email, s.address, s.nativePlace, s.nation, s.politicalStatus, " +
+           "c.id, c.className, s.enrollmentDate, s.graduationDate, s.avatar, s.status, s.remark, u.id, s.createdAt) " +
+           "FROM Student s LEFT JOIN s.clazz c LEFT JOIN s.user u ORDER BY s.id")
+    Stream<StudentResponse> streamAllForExport();
 }
@@ -1,6 +1,7 @@
 package com.example.student.repository;
 
 import com.example.student.entity.Teacher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -17,18 +18,26 @@ public interface TeacherRepository extends JpaRepository<Teacher, Long>, JpaSpec
 
     Optional<Teacher> findByTeacherNo(String teacherNo);
 
-    boolean existsByTeacherNo(String teacherNo);
+    /**
+     * 唯一性校验包含已删除的记录，与数据库唯一约束保持一致
+     */
+    @Query(value = "SELECT COUNT(*) FROM edu_teacher WHERE teacher_no = ?1", nativeQuery = true)
+    long countByTeacherNoIncludingDeleted(String teacherNo);
+
+    default boolean existsByTeacherNo(String teacherNo) {
+        return countByTeacherNoIncludingDeleted(teacherNo) > 0;
+    }
 
     Optional<Teacher> findByUserId(Long userId);
 
     List<Teacher> findByDepartment(String department);
 
-    @Query("SELECT t FROM Teacher t WHERE t.name LIKE %?1% OR t.teacherNo LIKE %?1%")
-    List<Teacher> searchByKeyword(String keyword);
+    @Query("SELECT t FROM Teacher t WHERE t.name LIKE %?1% OR t.teacherNo LIKE %?1% ORDER BY t.id DESC")
+    List<Teacher> searchByKeyword(String keyword, Pageable pageable);
 
-    @Query("SELECT COUNT(t) FROM Teacher t WHERE t.status = 1 AND t.isDeleted = false")
+    @Query("SELECT COUNT(t) FROM Teacher t WHERE t.status = 1")
     long countActiveTeachers();
 
-    @Query("SELECT t.department, COUNT(t) FROM Teacher t WHERE t.isDeleted = false GROUP BY t.department")
+    @Query("SELECT t.department, COUNT(t) FROM Teacher t GROUP BY t.department")
     List<Object[]> countTeachersByDepartment();
 }
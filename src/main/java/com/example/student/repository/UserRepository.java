@@ -3,9 +3,12 @@ package com.example.student.repository;
 import com.example.student.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,16 +21,41 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
 
     Optional<User> findByEmail(String email);
 
-    boolean existsByUsername(String username);
+    /**
+     * 唯一性校验包含已删除的记录，与数据库唯一约束保持一致
+     */
+    @Query(value = "SELECT COUNT(*) FROM sys_user WHERE username = ?1", nativeQuery = true)
+    long countByUsernameIncludingDeleted(String username);
+
+    default boolean existsByUsername(String username) {
+        return countByUsernameIncludingDeleted(username) > 0;
+    }
 
     boolean existsByEmail(String email);
 
+    @Query(value = "SELECT username FROM sys_user", nativeQuery = true)
+    List<String> findAllUsernames();
+
+    @Query("SELECT u.username, u.id FROM User u WHERE u.username IN ?1")
+    List<Object[]> findIdsByUsernames(Collection<String> usernames);
+
     @Query("SELECT u FROM User u WHERE u.username = ?1 OR u.email = ?1")
     Optional<User> findByUsernameOrEmail(String loginName);
 
-    @Query("SELECT COUNT(u) FROM User u WHERE u.status = 1 AND u.isDeleted = false")
+    @Query("SELECT COUNT(u) FROM User u WHERE u.status = 1")
     long countActiveUsers();
 
-    @Query("SELECT COUNT(u) FROM User u WHERE u.userType = ?1 AND u.isDeleted = false")
+    @Query("SELECT COUNT(u) FROM User u WHERE u.userType = ?1")
     long countByUserType(Integer userType);
+
+    @Query("SELECT COALESCE(u.tokenVersion, 0) FROM User u WHERE u.id = ?1")
+    Optional<Integer> findTokenVersionById(Long userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.tokenVersion = COALESCE(u.tokenVersion, 0) + 1 WHERE u.id = ?1")
+    int incrementTokenVersion(Long userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.tokenVersion = COALESCE(u.tokenVersion, 0) + 1 WHERE u.role.id = ?1")
+    int incrementTokenVersionByRoleId(Long roleId);
 }
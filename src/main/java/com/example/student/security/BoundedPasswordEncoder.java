@@ -0,0 +1,133 @@
+package com.example.student.security;
+
+import com.example.student.util.LatencyHistogram;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界密码校验器
+ * 密码校验在独立的有界线程池中执行，排队已满时快速拒绝，避免登录高峰拖垮其他接口；
+ * 校验耗时定期输出到日志
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    @Getter
+    private final LatencyHistogram matchLatency = new LatencyHistogram();
+
+    @Getter
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+
+    // 上次输出统计时的校验次数，无新样本时不重复输出
+    private final AtomicLong lastLoggedCount = new AtomicLong(-1);
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMillis) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-verify-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            encodeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Future<Boolean> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return delegate.matches(rawPassword, encodedPassword);
+                } finally {
+                    matchLatency.record(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("密码校验队列已满, 排队数={}", executor.getQueue().size());
+            throw new PasswordVerificationUnavailableException("当前登录人数过多，请稍后重试", e);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("密码校验超时, 排队数={}", executor.getQueue().size());
+            throw new PasswordVerificationUnavailableException("当前登录人数过多，请稍后重试", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordVerificationUnavailableException("登录请求已中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 当前排队等待校验的请求数
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 定期输出校验耗时统计
+     */
+    @Scheduled(fixedDelayString = "${security.bcrypt.stats-interval:300000}",
+            initialDelayString = "${security.bcrypt.stats-interval:300000}")
+    public void logStatistics() {
+        long count = matchLatency.getCount() + encodeLatency.getCount();
+        if (lastLoggedCount.getAndSet(count) == count) {
+            return;
+        }
+        log.info("密码校验统计: 校验次数={}, 平均={}ms, p50={}ms, p99={}ms, 加密次数={}, 平均={}ms, 排队数={}",
+                matchLatency.getCount(), String.format("%.1f", matchLatency.getMeanMillis()),
+                matchLatency.getPercentileMillis(50), matchLatency.getPercentileMillis(99),
+                encodeLatency.getCount(), String.format("%.1f", encodeLatency.getMeanMillis()),
+                getQueueDepth());
+        log.debug("密码校验耗时分布: {}", matchLatency.snapshot());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
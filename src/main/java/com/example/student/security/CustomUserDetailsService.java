@@ -3,8 +3,10 @@ package com.example.student.security;
 import com.example.student.entity.User;
 import com.example.student.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -16,11 +18,13 @@ import java.util.List;
 /**
  * 自定义用户详情服务
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -46,4 +50,28 @@ public class CustomUserDetailsService implements UserDetailsService {
                 authorities
         );
     }
+
+    /**
+     * 登录成功后按当前加密强度重新加密密码
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("用户不存在: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        log.info("用户密码已按新强度重新加密: {}", user.getUsername());
+
+        CustomUserDetails details = (CustomUserDetails) userDetails;
+        return new CustomUserDetails(
+                details.getUserId(),
+                details.getUsername(),
+                newPassword,
+                details.getRealName(),
+                details.getUserType(),
+                details.getAuthorities()
+        );
+    }
 }
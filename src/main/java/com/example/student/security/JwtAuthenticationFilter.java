@@ -1,11 +1,13 @@
 package com.example.student.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,6 +29,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -35,9 +41,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.parseClaims(jwt) : null;
+
+            // 刷新令牌只能用于 /auth/refresh，不能作为访问令牌
+            if (claims != null && !jwtTokenProvider.isRefreshToken(claims)) {
+                UserDetails userDetails = loadUserDetails(claims);
 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
@@ -56,6 +64,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 加载用户详情
+     * 无状态模式下直接使用令牌中签入的用户声明，旧令牌未携带声明时回退到数据库查询
+     */
+    private UserDetails loadUserDetails(Claims claims) {
+        if (statelessPrincipal) {
+            UserDetails userDetails = jwtTokenProvider.getUserDetailsFromClaims(claims);
+            if (userDetails != null) {
+                return userDetails;
+            }
+        }
+        return userDetailsCache.get(claims.getSubject(), userDetailsService::loadUserByUsername);
+    }
+
     /**
      * 从请求中获取JWT令牌
      */
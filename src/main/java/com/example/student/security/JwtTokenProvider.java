@@ -3,23 +3,42 @@ package com.example.student.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JWT Token 工具类
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtTokenProvider {
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_USER_TYPE = "utp";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_REAL_NAME = "name";
+    private static final String CLAIM_VERSION = "ver";
+    private static final String CLAIM_TYPE = "type";
+    private static final String TYPE_REFRESH = "refresh";
+
+    private final TokenVersionRegistry tokenVersionRegistry;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -29,19 +48,53 @@ public class JwtTokenProvider {
     @Value("${jwt.refresh-expiration}")
     private long refreshExpiration;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
     private SecretKey key;
 
+    // JwtParser 是线程安全的，全局复用一个实例
+    private JwtParser jwtParser;
+
+    // 以完整令牌字符串为键，避免仅凭哈希命中而绕过验签
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(key)
+                .build();
     }
 
     /**
      * 生成访问令牌
+     * 对 CustomUserDetails 额外签入用户ID、类型、角色和令牌版本，支持无状态认证
      */
     public String generateToken(Authentication authentication) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        return generateToken(userDetails.getUsername());
+        if (!(userDetails instanceof CustomUserDetails customUserDetails)) {
+            return generateToken(userDetails.getUsername());
+        }
+
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+        String role = customUserDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .findFirst()
+                .orElse(null);
+
+        return Jwts.builder()
+                .subject(customUserDetails.getUsername())
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .claim(CLAIM_USER_ID, customUserDetails.getUserId())
+                .claim(CLAIM_USER_TYPE, customUserDetails.getUserType())
+                .claim(CLAIM_ROLE, role)
+                .claim(CLAIM_REAL_NAME, customUserDetails.getRealName())
+                .claim(CLAIM_VERSION, tokenVersionRegistry.currentVersion(customUserDetails.getUserId()))
+                .signWith(key)
+                .compact();
     }
 
     /**
@@ -60,43 +113,108 @@ public class JwtTokenProvider {
     }
 
     /**
-     * 生成刷新令牌
+     * 生成刷新令牌，令牌ID对应 RefreshTokenStore 中的记录
      */
-    public String generateRefreshToken(String username) {
+    public String generateRefreshToken(CustomUserDetails userDetails, String tokenId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + refreshExpiration);
 
         return Jwts.builder()
-                .subject(username)
+                .id(tokenId)
+                .subject(userDetails.getUsername())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .claim("type", "refresh")
+                .claim(CLAIM_TYPE, TYPE_REFRESH)
+                .claim(CLAIM_USER_ID, userDetails.getUserId())
+                .claim(CLAIM_VERSION, tokenVersionRegistry.currentVersion(userDetails.getUserId()))
                 .signWith(key)
                 .compact();
     }
 
+    /**
+     * 是否为刷新令牌
+     */
+    public boolean isRefreshToken(Claims claims) {
+        return TYPE_REFRESH.equals(claims.get(CLAIM_TYPE, String.class));
+    }
+
+    /**
+     * 令牌携带的版本是否已被吊销
+     */
+    public boolean isRevoked(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        return userId != null && !tokenVersionRegistry.isCurrent(userId, claims.get(CLAIM_VERSION, Integer.class));
+    }
+
     /**
      * 从令牌中获取用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.getSubject();
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    /**
+     * 从令牌声明中直接构建用户详情，令牌未携带用户声明时返回null
+     */
+    public CustomUserDetails getUserDetailsFromClaims(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        Integer version = claims.get(CLAIM_VERSION, Integer.class);
+        if (userId == null) {
+            return null;
+        }
+        if (!tokenVersionRegistry.isCurrent(userId, version)) {
+            throw new BadCredentialsException("令牌已失效");
+        }
+
+        String role = claims.get(CLAIM_ROLE, String.class);
+        return new CustomUserDetails(
+                userId,
+                claims.getSubject(),
+                null,
+                claims.get(CLAIM_REAL_NAME, String.class),
+                claims.get(CLAIM_USER_TYPE, Integer.class),
+                role != null ? Collections.singletonList(new SimpleGrantedAuthority(role)) : Collections.emptyList()
+        );
     }
 
     /**
      * 验证令牌
      */
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    /**
+     * 解析并验证令牌，返回声明；令牌无效或已过期时返回null
+     * 验签通过的令牌会缓存到过期为止，同一令牌的后续请求无需重复验签
+     */
+    public Claims parseClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            log.error("JWT令牌为空");
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(token);
+        if (cached != null) {
+            if (cached.expireAt() > now) {
+                return cached.claims();
+            }
+            verifiedTokens.remove(token);
+            log.error("JWT令牌已过期");
+            return null;
+        }
+
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            if (verifiedTokens.size() >= verifiedCacheSize) {
+                shrinkVerifiedTokens(now);
+            }
+            Date expiration = claims.getExpiration();
+            verifiedTokens.put(token, new VerifiedToken(claims,
+                    expiration != null ? expiration.getTime() : now + jwtExpiration));
+            return claims;
         } catch (MalformedJwtException e) {
             log.error("无效的JWT令牌: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -105,8 +223,23 @@ public class JwtTokenProvider {
             log.error("不支持的JWT令牌: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             log.error("JWT令牌为空: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.error("JWT令牌校验失败: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 缓存已满时先清理过期令牌，仍超限则淘汰部分条目至容量的90%
+     */
+    private void shrinkVerifiedTokens(long now) {
+        verifiedTokens.values().removeIf(token -> token.expireAt() <= now);
+        int target = (int) (verifiedCacheSize * 0.9);
+        Iterator<VerifiedToken> iterator = verifiedTokens.values().iterator();
+        while (verifiedTokens.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
         }
-        return false;
     }
 
     /**
@@ -115,4 +248,7 @@ public class JwtTokenProvider {
     public long getExpirationTime() {
         return jwtExpiration;
     }
+
+    private record VerifiedToken(Claims claims, long expireAt) {
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.student.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * 菜单权限校验器
+ * 供 @PreAuthorize("hasPermission(null, 'student:add')") 使用，按菜单上配置的权限标识校验，
+ * 不区分目标对象
+ */
+@Component
+@RequiredArgsConstructor
+public class MenuPermissionEvaluator implements PermissionEvaluator {
+
+    private final PermissionRegistry permissionRegistry;
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        return permission != null && permissionRegistry.hasPermission(authentication, permission.toString());
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+                                 Object permission) {
+        return hasPermission(authentication, null, permission);
+    }
+}
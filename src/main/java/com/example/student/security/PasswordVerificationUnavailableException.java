@@ -0,0 +1,18 @@
+package com.example.student.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * 密码校验暂不可用异常
+ * 校验队列已满、等待超时或请求被中断时抛出，与密码错误区分，由全局异常处理返回 503
+ */
+public class PasswordVerificationUnavailableException extends AuthenticationServiceException {
+
+    public PasswordVerificationUnavailableException(String message) {
+        super(message);
+    }
+
+    public PasswordVerificationUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
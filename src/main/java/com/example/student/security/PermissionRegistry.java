@@ -0,0 +1,117 @@
+package com.example.student.security;
+
+import com.example.student.util.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 权限登记
+ * 把各角色可访问菜单上的权限标识编译成位图：权限标识映射为位下标，每个角色一个位图，
+ * 校验时只做哈希查找和位运算，不访问数据库；角色或菜单变更提交后整体重建并替换
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionRegistry {
+
+    private static final String PERMISSION_SQL = "SELECT id, permission FROM sys_menu "
+            + "WHERE status = 1 AND is_deleted = false AND permission IS NOT NULL AND permission <> ''";
+
+    private static final String ROLE_SQL = "SELECT role_code FROM sys_role WHERE status = 1 AND is_deleted = false";
+
+    private static final String ROLE_MENU_SQL = "SELECT r.role_code, rm.menu_id FROM sys_role r "
+            + "JOIN sys_role_menu rm ON rm.role_id = r.id WHERE r.status = 1 AND r.is_deleted = false";
+
+    private static final String ADMIN_ROLE = "ADMIN";
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), Set.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<String, Integer> bits = new HashMap<>();
+        Map<Long, Integer> menuBits = new HashMap<>();
+        jdbcTemplate.query(PERMISSION_SQL, rs -> {
+            String permission = rs.getString(2).trim();
+            if (!permission.isEmpty()) {
+                menuBits.put(rs.getLong(1), bits.computeIfAbsent(permission, key -> bits.size()));
+            }
+        });
+
+        Set<String> enabledRoles = new HashSet<>(jdbcTemplate.queryForList(ROLE_SQL, String.class));
+
+        Map<String, BitSet> roles = new HashMap<>();
+        jdbcTemplate.query(ROLE_MENU_SQL, rs -> {
+            Integer bit = menuBits.get(rs.getLong(2));
+            if (bit != null) {
+                roles.computeIfAbsent(rs.getString(1), key -> new BitSet(bits.size())).set(bit);
+            }
+        });
+
+        snapshot = new Snapshot(Map.copyOf(bits), Map.copyOf(roles), Set.copyOf(enabledRoles));
+        log.info("权限位图已加载: {}项权限, {}个角色, 耗时{}ms", bits.size(), roles.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 角色或菜单权限变更后重建，在事务提交后执行
+     */
+    public void refresh() {
+        TransactionCallbacks.afterCommit(this::rebuild);
+    }
+
+    /**
+     * 当前认证用户的任一角色是否拥有该权限标识
+     */
+    public boolean hasPermission(Authentication authentication, String permission) {
+        if (authentication == null || permission == null) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name == null || !name.startsWith(ROLE_PREFIX)) {
+                continue;
+            }
+            String roleCode = name.substring(ROLE_PREFIX.length());
+            // 管理员拥有全部权限，与普通角色一样只在角色启用时生效
+            if (ADMIN_ROLE.equals(roleCode) && current.enabledRoles().contains(roleCode)) {
+                return true;
+            }
+            if (current.granted(roleCode, permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 一次构建的只读快照，重建时整体替换，读取方无需加锁
+     */
+    private record Snapshot(Map<String, Integer> bits, Map<String, BitSet> roles, Set<String> enabledRoles) {
+
+        private boolean granted(String roleCode, String permission) {
+            Integer bit = bits.get(permission);
+            if (bit == null) {
+                return false;
+            }
+            BitSet granted = roles.get(roleCode);
+            return granted != null && granted.get(bit);
+        }
+    }
+}
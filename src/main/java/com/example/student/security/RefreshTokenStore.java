@@ -0,0 +1,117 @@
+package com.example.student.security;
+
+import com.example.student.exception.BusinessException;
+import com.example.student.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 刷新令牌存储
+ * 每次刷新都轮换令牌；同一令牌被重复使用时判定为泄露，吊销整个令牌族
+ */
+@Slf4j
+@Component
+public class RefreshTokenStore {
+
+    private static final String TOKEN_PREFIX = "t:";
+    private static final String FAMILY_PREFIX = "f:";
+
+    @Value("${jwt.refresh-expiration}")
+    private long refreshExpiration;
+
+    @Value("${jwt.refresh-store.tick:60000}")
+    private long tickMillis;
+
+    // 令牌ID -> 令牌记录
+    private final Map<String, RefreshEntry> tokens = new ConcurrentHashMap<>();
+
+    // 已吊销的令牌族 -> 过期时间
+    private final Map<String, Long> revokedFamilies = new ConcurrentHashMap<>();
+
+    private TimingWheel<String> timingWheel;
+
+    @PostConstruct
+    public void init() {
+        this.timingWheel = new TimingWheel<>(tickMillis, refreshExpiration);
+    }
+
+    /**
+     * 登录时签发新的令牌族，返回令牌ID
+     */
+    public String issue(String username) {
+        return register(username, UUID.randomUUID().toString(),
+                System.currentTimeMillis() + refreshExpiration);
+    }
+
+    /**
+     * 轮换刷新令牌，返回新的令牌ID
+     */
+    public String rotate(String tokenId, String username) {
+        RefreshEntry entry = tokenId != null ? tokens.get(tokenId) : null;
+        if (entry == null || !entry.username().equals(username)
+                || entry.expireAt() <= System.currentTimeMillis()) {
+            throw BusinessException.unauthorized("刷新令牌无效或已过期");
+        }
+        if (revokedFamilies.containsKey(entry.familyId())) {
+            throw BusinessException.unauthorized("刷新令牌已被吊销");
+        }
+        if (!entry.used().compareAndSet(false, true)) {
+            revokeFamily(entry.familyId(), entry.expireAt());
+            log.warn("检测到刷新令牌重复使用，已吊销令牌族: {}", username);
+            throw BusinessException.unauthorized("刷新令牌已失效，请重新登录");
+        }
+        // 同一令牌族沿用最初的过期时间，轮换不会无限延长登录状态
+        return register(username, entry.familyId(), entry.expireAt());
+    }
+
+    /**
+     * 吊销令牌所在的令牌族（退出登录）
+     */
+    public void revoke(String tokenId) {
+        RefreshEntry entry = tokenId != null ? tokens.get(tokenId) : null;
+        if (entry != null) {
+            revokeFamily(entry.familyId(), entry.expireAt());
+        }
+    }
+
+    /**
+     * 推进时间轮，清理过期的令牌和吊销记录
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-store.tick:60000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        timingWheel.advance(now, key -> {
+            if (key.startsWith(TOKEN_PREFIX)) {
+                tokens.computeIfPresent(key.substring(TOKEN_PREFIX.length()),
+                        (id, entry) -> entry.expireAt() <= now ? null : entry);
+            } else {
+                revokedFamilies.computeIfPresent(key.substring(FAMILY_PREFIX.length()),
+                        (id, expireAt) -> expireAt <= now ? null : expireAt);
+            }
+        });
+    }
+
+    private String register(String username, String familyId, long expireAt) {
+        String tokenId = UUID.randomUUID().toString();
+        tokens.put(tokenId, new RefreshEntry(username, familyId, expireAt, new AtomicBoolean(false)));
+        timingWheel.schedule(TOKEN_PREFIX + tokenId, expireAt);
+        return tokenId;
+    }
+
+    private void revokeFamily(String familyId, long expireAt) {
+        if (revokedFamilies.putIfAbsent(familyId, expireAt) == null) {
+            timingWheel.schedule(FAMILY_PREFIX + familyId, expireAt);
+        }
+    }
+
+    private record RefreshEntry(String username, String familyId, long expireAt, AtomicBoolean used) {
+    }
+}
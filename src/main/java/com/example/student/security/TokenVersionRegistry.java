@@ -0,0 +1,76 @@
+package com.example.student.security;
+
+import com.example.student.repository.UserRepository;
+import com.example.student.util.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌版本登记
+ * 用户禁用、删除、改密或角色变更时递增版本号，携带旧版本号的令牌即被拒绝
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    // 每次吊销都会递增，用于丢弃吊销提交前就已开始读取的旧版本号
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 获取用户当前令牌版本
+     */
+    public int currentVersion(Long userId) {
+        Integer cached = versions.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = generation.get();
+        int version = userRepository.findTokenVersionById(userId).orElse(-1);
+        if (generation.get() == loadGeneration) {
+            versions.putIfAbsent(userId, version);
+        }
+        return version;
+    }
+
+    /**
+     * 校验令牌版本是否仍然有效
+     */
+    public boolean isCurrent(Long userId, Integer tokenVersion) {
+        return userId != null && tokenVersion != null && tokenVersion == currentVersion(userId);
+    }
+
+    /**
+     * 吊销用户已签发的全部令牌（需在事务中调用）
+     */
+    public void revoke(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        // 提交后再移除，下次校验读取已提交的版本号；回滚时内存中的版本号保持不变
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            versions.remove(userId);
+        });
+        log.info("用户令牌已吊销: userId={}", userId);
+    }
+
+    /**
+     * 吊销某角色下所有用户的令牌（需在事务中调用）
+     */
+    public void revokeByRole(Long roleId) {
+        int count = userRepository.incrementTokenVersionByRoleId(roleId);
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            versions.clear();
+        });
+        log.info("角色令牌已吊销: roleId={}, 用户数={}", roleId, count);
+    }
+}
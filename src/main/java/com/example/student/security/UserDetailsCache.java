@@ -0,0 +1,151 @@
+package com.example.student.security;
+
+import com.example.student.util.TransactionCallbacks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 已认证用户详情缓存
+ * 按用户名缓存 UserDetails，避免每个请求都查询用户及角色；
+ * 失效在事务提交后执行，提交前开始的加载会因代数变化而被丢弃，不会把提交前的旧数据重新放回缓存
+ */
+@Slf4j
+@Component
+public class UserDetailsCache {
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${jwt.principal-cache.ttl:300000}")
+    private long ttl;
+
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    // 每次失效都会递增，用于丢弃失效前就已开始加载的旧数据
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * 获取用户详情，未命中或已过期时通过 loader 加载
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        CacheEntry entry = cache.get(username);
+        if (entry != null && entry.expireAt() > now) {
+            hitCount.increment();
+            return entry.userDetails();
+        }
+
+        missCount.increment();
+        long loadGeneration = generation.get();
+        UserDetails userDetails = loader.apply(username);
+
+        if (cache.size() >= maxSize) {
+            shrink(now);
+        }
+        if (generation.get() == loadGeneration) {
+            cache.put(username, new CacheEntry(userDetails, now + ttl));
+        }
+        return userDetails;
+    }
+
+    /**
+     * 使指定用户的缓存失效，在事务提交后执行
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.remove(username);
+        });
+    }
+
+    /**
+     * 使拥有指定角色的用户缓存失效，在事务提交后执行
+     */
+    public void evictByRole(String roleCode) {
+        if (roleCode == null) {
+            return;
+        }
+        String authority = "ROLE_" + roleCode;
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.values().removeIf(entry -> hasAuthority(entry.userDetails(), authority));
+        });
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void evictAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * 命中率
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * 缓存已满时先清理过期项，仍超限则淘汰部分条目至容量的90%
+     */
+    private void shrink(long now) {
+        cache.values().removeIf(entry -> entry.expireAt() <= now);
+        int target = (int) (maxSize * 0.9);
+        Iterator<CacheEntry> iterator = cache.values().iterator();
+        while (cache.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictionCount.increment();
+        }
+        log.debug("用户缓存清理完成, size={}, hitRate={}", cache.size(), getHitRate());
+    }
+
+    private boolean hasAuthority(UserDetails userDetails, String authority) {
+        for (GrantedAuthority granted : userDetails.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record CacheEntry(UserDetails userDetails, long expireAt) {
+    }
+}
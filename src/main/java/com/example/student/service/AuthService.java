@@ -11,12 +11,17 @@ import com.example.student.repository.RoleRepository;
 import com.example.student.repository.UserRepository;
 import com.example.student.security.CustomUserDetails;
 import com.example.student.security.JwtTokenProvider;
+import com.example.student.security.RefreshTokenStore;
+import com.example.student.security.TokenVersionRegistry;
+import com.example.student.security.UserDetailsCache;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,6 +42,10 @@ public class AuthService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final RefreshTokenStore refreshTokenStore;
+    private final UserDetailsService userDetailsService;
 
     /**
      * 用户登录
@@ -56,7 +65,8 @@ public class AuthService {
 
         // 生成令牌
         String accessToken = jwtTokenProvider.generateToken(authentication);
-        String refreshToken = jwtTokenProvider.generateRefreshToken(userDetails.getUsername());
+        String refreshToken = jwtTokenProvider.generateRefreshToken(userDetails,
+                refreshTokenStore.issue(userDetails.getUsername()));
 
         // 更新登录信息
         User user = userRepository.findById(userDetails.getUserId()).orElseThrow();
@@ -73,6 +83,48 @@ public class AuthService {
                 .build();
     }
 
+    /**
+     * 刷新令牌
+     * 校验并轮换刷新令牌，签发新的访问令牌，无需重新校验密码
+     */
+    public LoginResponse refresh(String refreshToken) {
+        Claims claims = jwtTokenProvider.parseClaims(refreshToken);
+        if (claims == null || !jwtTokenProvider.isRefreshToken(claims)) {
+            throw BusinessException.unauthorized("刷新令牌无效或已过期");
+        }
+        if (jwtTokenProvider.isRevoked(claims)) {
+            refreshTokenStore.revoke(claims.getId());
+            throw BusinessException.unauthorized("刷新令牌已失效，请重新登录");
+        }
+
+        // 先重新加载用户，确保已禁用的账号无法续期，校验失败时不消耗刷新令牌
+        CustomUserDetails userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(claims.getSubject());
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+
+        String tokenId = refreshTokenStore.rotate(claims.getId(), claims.getSubject());
+
+        return LoginResponse.builder()
+                .accessToken(jwtTokenProvider.generateToken(authentication))
+                .refreshToken(jwtTokenProvider.generateRefreshToken(userDetails, tokenId))
+                .tokenType("Bearer")
+                .expiresIn(jwtTokenProvider.getExpirationTime())
+                .build();
+    }
+
+    /**
+     * 退出登录，吊销刷新令牌
+     */
+    public void logout(String refreshToken) {
+        if (refreshToken == null) {
+            return;
+        }
+        Claims claims = jwtTokenProvider.parseClaims(refreshToken);
+        if (claims != null && jwtTokenProvider.isRefreshToken(claims)) {
+            refreshTokenStore.revoke(claims.getId());
+        }
+    }
+
     /**
      * 用户注册
      */
@@ -135,6 +187,8 @@ public class AuthService {
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        tokenVersionRegistry.revoke(user.getId());
         log.info("用户修改密码成功: {}", user.getUsername());
     }
 
@@ -179,6 +233,8 @@ public class AuthService {
         user.setVerifyCode(null);
         user.setVerifyCodeExpireTime(null);
         userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        tokenVersionRegistry.revoke(user.getId());
         log.info("用户重置密码成功: {}", user.getUsername());
     }
 
@@ -7,10 +7,10 @@ import com.example.student.entity.Teacher;
 import com.example.student.exception.BusinessException;
 import com.example.student.repository.ClazzRepository;
 import com.example.student.repository.TeacherRepository;
+import com.example.student.util.KeysetCursor;
 import com.example.student.util.PageVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -21,6 +21,7 @@ import org.springframework.util.StringUtils;
 
 import jakarta.persistence.criteria.Predicate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -34,18 +35,38 @@ public class ClazzService {
 
     private final ClazzRepository clazzRepository;
     private final TeacherRepository teacherRepository;
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final SuggestIndex suggestIndex;
+    private final DashboardAggregates dashboardAggregates;
+    private final RankingService rankingService;
 
     /**
      * 分页查询班级
      */
     public PageVO<ClazzResponse> findPage(Integer page, Integer size, String keyword, 
-                                          String grade, String department) {
+                                          String grade, String department, boolean estimate) {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
-        Specification<Clazz> spec = (root, query, cb) -> {
+        Specification<Clazz> spec = buildSpec(keyword, grade, department);
+        List<Object> filters = Arrays.asList(keyword, grade, department);
+        return pagedQueryExecutor.findPage(Clazz.class, spec, pageable, filters, estimate, this::toResponse);
+    }
+
+    /**
+     * 游标分页查询班级，withTotal 为 false 时不执行 count 查询
+     */
+    public PageVO<ClazzResponse> findCursorPage(String cursor, Integer size,
+                                                String keyword, String grade, String department, boolean withTotal) {
+        int pageSize = KeysetCursor.size(size);
+        Specification<Clazz> spec = buildSpec(keyword, grade, department);
+        List<Clazz> rows = clazzRepository.findBy(spec.and(KeysetCursor.after(cursor)),
+                query -> query.sortBy(KeysetCursor.SORT).limit(pageSize + 1).all());
+        Long total = withTotal ? clazzRepository.count(spec.and(KeysetCursor.after(null))) : null;
+        return KeysetCursor.toPage(rows, pageSize, this::toResponse, total);
+    }
+
+    private Specification<Clazz> buildSpec(String keyword, String grade, String department) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("isDeleted"), false));
-            
             if (StringUtils.hasText(keyword)) {
                 Predicate nameLike = cb.like(root.get("className"), "%" + keyword + "%");
                 Predicate codeLike = cb.like(root.get("classCode"), "%" + keyword + "%");
@@ -59,13 +80,6 @@ public class ClazzService {
             }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-        
-        Page<Clazz> pageResult = clazzRepository.findAll(spec, pageable);
-        List<ClazzResponse> records = pageResult.getContent().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        
-        return PageVO.fromPage(pageResult, records);
     }
 
     /**
@@ -116,6 +130,9 @@ public class ClazzService {
         }
 
         clazz = clazzRepository.save(clazz);
+        pagedQueryExecutor.invalidate(Clazz.class);
+        dashboardAggregates.classChanged(clazz.getId(), DashboardAggregates.ClassFacts.of(clazz));
+        suggestIndex.put(SuggestIndex.Type.CLASS, clazz.getId(), clazz.getClassName(), clazz.getClassCode());
         log.info("创建班级成功: {}", clazz.getClassName());
         return toResponse(clazz);
     }
@@ -146,6 +163,10 @@ public class ClazzService {
         }
 
         clazz = clazzRepository.save(clazz);
+        pagedQueryExecutor.invalidate(Clazz.class);
+        dashboardAggregates.classChanged(clazz.getId(), DashboardAggregates.ClassFacts.of(clazz));
+        rankingService.classChanged(clazz.getId(), RankingService.Placement.of(clazz));
+        suggestIndex.put(SuggestIndex.Type.CLASS, clazz.getId(), clazz.getClassName(), clazz.getClassCode());
         log.info("更新班级成功: {}", clazz.getClassName());
         return toResponse(clazz);
     }
@@ -165,6 +186,9 @@ public class ClazzService {
 
         clazz.setIsDeleted(true);
         clazzRepository.save(clazz);
+        pagedQueryExecutor.invalidate(Clazz.class);
+        dashboardAggregates.classChanged(clazz.getId(), null);
+        suggestIndex.remove(SuggestIndex.Type.CLASS, clazz.getId());
         log.info("删除班级成功: {}", clazz.getClassName());
     }
 
@@ -181,7 +205,6 @@ public class ClazzService {
      */
     public List<ClazzResponse> findByGrade(String grade) {
         return clazzRepository.findByGrade(grade).stream()
-                .filter(c -> !c.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
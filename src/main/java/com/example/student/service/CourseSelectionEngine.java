@@ -0,0 +1,217 @@
+package com.example.student.service;
+
+import com.example.student.repository.CourseRepository;
+import com.example.student.repository.ScoreRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 选课引擎
+ * 在内存中维护每门课程的已选人数和已选学生，以无锁CAS预占名额，
+ * 选课人数异步批量回写 edu_course，启动时以 edu_score 为准校准
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseSelectionEngine {
+
+    private final CourseRepository courseRepository;
+    private final ScoreRepository scoreRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, CourseSeats> seats = new ConcurrentHashMap<>();
+
+    // 选课人数有变化、待回写的课程
+    private final Set<Long> dirtyCourses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 预占结果
+     */
+    public enum Result {
+        RESERVED,   // 预占成功
+        FULL,       // 课程已满员
+        DUPLICATE,  // 已选择该课程
+        NOT_FOUND   // 课程不存在
+    }
+
+    /**
+     * 启动时根据成绩表校准各课程的已选人数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        Map<Long, CourseSeats> loaded = new HashMap<>();
+        for (Object[] row : courseRepository.findSeatCapacities()) {
+            Long courseId = ((Number) row[0]).longValue();
+            loaded.put(courseId, new CourseSeats(toCapacity((Integer) row[1])));
+        }
+        for (Object[] row : scoreRepository.findAllSelections()) {
+            CourseSeats courseSeats = loaded.get(((Number) row[0]).longValue());
+            if (courseSeats != null && courseSeats.students.add(((Number) row[1]).longValue())) {
+                courseSeats.selected.incrementAndGet();
+            }
+        }
+
+        seats.clear();
+        seats.putAll(loaded);
+        dirtyCourses.addAll(loaded.keySet());
+        flush();
+        log.info("选课引擎校准完成, 课程数={}", loaded.size());
+    }
+
+    /**
+     * 预占课程名额
+     */
+    public Result reserve(Long courseId, Long studentId) {
+        CourseSeats courseSeats = seatsOf(courseId);
+        if (courseSeats == null) {
+            return Result.NOT_FOUND;
+        }
+        if (!courseSeats.students.add(studentId)) {
+            return Result.DUPLICATE;
+        }
+        if (!courseSeats.tryReserve()) {
+            courseSeats.students.remove(studentId);
+            return Result.FULL;
+        }
+        dirtyCourses.add(courseId);
+        return Result.RESERVED;
+    }
+
+    /**
+     * 释放课程名额（退选、删除或选课失败回滚）
+     */
+    public void release(Long courseId, Long studentId) {
+        CourseSeats courseSeats = seats.get(courseId);
+        if (courseSeats != null && courseSeats.students.remove(studentId)) {
+            courseSeats.release();
+            dirtyCourses.add(courseId);
+        }
+    }
+
+    /**
+     * 登记新课程
+     */
+    public void register(Long courseId, Integer maxStudents) {
+        seats.putIfAbsent(courseId, new CourseSeats(toCapacity(maxStudents)));
+    }
+
+    /**
+     * 更新课程容量，并重新回写选课人数
+     */
+    public void updateCapacity(Long courseId, Integer maxStudents) {
+        CourseSeats courseSeats = seats.get(courseId);
+        if (courseSeats != null) {
+            courseSeats.capacity = toCapacity(maxStudents);
+            dirtyCourses.add(courseId);
+        }
+    }
+
+    /**
+     * 移除课程
+     */
+    public void remove(Long courseId) {
+        seats.remove(courseId);
+        dirtyCourses.remove(courseId);
+    }
+
+    /**
+     * 当前已选人数，课程不在内存中时返回 null
+     */
+    public Integer getSelectedCount(Long courseId) {
+        CourseSeats courseSeats = seats.get(courseId);
+        return courseSeats != null ? courseSeats.selected.get() : null;
+    }
+
+    /**
+     * 批量回写选课人数
+     */
+    @Scheduled(fixedDelayString = "${course-selection.flush-interval:1000}")
+    public synchronized void flush() {
+        if (dirtyCourses.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        Iterator<Long> iterator = dirtyCourses.iterator();
+        while (iterator.hasNext()) {
+            Long courseId = iterator.next();
+            iterator.remove();
+            CourseSeats courseSeats = seats.get(courseId);
+            if (courseSeats != null) {
+                batch.add(new Object[]{courseSeats.selected.get(), courseId});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE edu_course SET current_students = ? WHERE id = ?", batch);
+        } catch (RuntimeException e) {
+            // 回写失败时重新标记，下一轮重试
+            batch.forEach(args -> dirtyCourses.add((Long) args[1]));
+            log.error("选课人数回写失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取课程名额，不在内存中时（如新建课程）从数据库加载
+     */
+    private CourseSeats seatsOf(Long courseId) {
+        CourseSeats courseSeats = seats.get(courseId);
+        if (courseSeats != null) {
+            return courseSeats;
+        }
+        return seats.computeIfAbsent(courseId, id -> courseRepository.findById(id)
+                .map(course -> {
+                    CourseSeats loaded = new CourseSeats(toCapacity(course.getMaxStudents()));
+                    loaded.students.addAll(scoreRepository.findStudentIdsByCourseId(id));
+                    loaded.selected.set(loaded.students.size());
+                    return loaded;
+                })
+                .orElse(null));
+    }
+
+    private int toCapacity(Integer maxStudents) {
+        return maxStudents != null ? maxStudents : Integer.MAX_VALUE;
+    }
+
+    /**
+     * 单门课程的名额状态
+     */
+    private static final class CourseSeats {
+
+        private final AtomicInteger selected = new AtomicInteger();
+        private final Set<Long> students = ConcurrentHashMap.newKeySet();
+        private volatile int capacity;
+
+        private CourseSeats(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private boolean tryReserve() {
+            while (true) {
+                int current = selected.get();
+                if (current >= capacity) {
+                    return false;
+                }
+                if (selected.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            selected.updateAndGet(current -> Math.max(0, current - 1));
+        }
+    }
+}
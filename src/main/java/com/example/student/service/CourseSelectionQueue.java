@@ -0,0 +1,363 @@
+package com.example.student.service;
+
+import com.example.student.dto.response.SelectionTicketResponse;
+import com.example.student.entity.Course;
+import com.example.student.entity.Score;
+import com.example.student.entity.Student;
+import com.example.student.exception.BusinessException;
+import com.example.student.repository.CourseRepository;
+import com.example.student.repository.ScoreRepository;
+import com.example.student.repository.StudentRepository;
+import com.example.student.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 排队选课服务
+ * 选课开放高峰期，请求先在选课引擎中预占名额，再进入有界队列，
+ * 由固定数量的工作线程按批写入选课记录，客户端凭排队凭据查询或长轮询结果
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseSelectionQueue {
+
+    private static final String PENDING = "PENDING";
+    private static final String SUCCESS = "SUCCESS";
+    private static final String FAILED = "FAILED";
+
+    private final CourseSelectionEngine courseSelectionEngine;
+    private final ScoreRepository scoreRepository;
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final PagedQueryExecutor pagedQueryExecutor;
+
+    @Value("${course-selection.queue.enabled:false}")
+    private boolean enabled;
+
+    @Value("${course-selection.queue.capacity:2000}")
+    private int capacity;
+
+    @Value("${course-selection.queue.workers:2}")
+    private int workers;
+
+    @Value("${course-selection.queue.batch-size:50}")
+    private int batchSize;
+
+    @Value("${course-selection.queue.per-student-limit:5}")
+    private int perStudentLimit;
+
+    @Value("${course-selection.queue.ticket-ttl:300000}")
+    private long ticketTtl;
+
+    @Value("${course-selection.queue.max-wait:20000}")
+    private long maxWait;
+
+    @Value("${course-selection.queue.shutdown-timeout:10000}")
+    private long shutdownTimeout;
+
+    // 凭据ID -> 排队凭据
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    // 学生ID -> 尚未处理完的排队请求数
+    private final Map<Long, Integer> pendingByStudent = new ConcurrentHashMap<>();
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    private BlockingQueue<Ticket> queue;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.running = true;
+        for (int i = 1; i <= workers; i++) {
+            Thread thread = new Thread(this::work, "course-selection-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workerThreads.add(thread);
+        }
+        log.info("排队选课已开启, 队列容量={}, 工作线程={}, 批大小={}", capacity, workers, batchSize);
+    }
+
+    /**
+     * 停止接收新请求，等待工作线程处理完当前批次；超时仍未完成的、以及队列中剩余的请求
+     * 全部判定失败并释放预占的名额
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeout;
+        try {
+            for (Thread thread : workerThreads) {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workerThreads.stream().filter(Thread::isAlive).forEach(thread -> {
+            log.warn("排队选课工作线程未在 {}ms 内结束: {}", shutdownTimeout, thread.getName());
+            thread.interrupt();
+        });
+
+        List<Ticket> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(ticket -> fail(ticket, "系统维护中，请重新选课"));
+        tickets.values().forEach(ticket -> fail(ticket, "系统维护中，请重新选课"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交排队选课请求，名额不足或重复选课时立即拒绝
+     */
+    public SelectionTicketResponse submit(Long studentId, Long courseId) {
+        if (!enabled) {
+            throw BusinessException.badRequest("排队选课未开启");
+        }
+        if (studentId == null || courseId == null) {
+            throw BusinessException.badRequest("学生和课程不能为空");
+        }
+        if (!running) {
+            throw new BusinessException(503, "系统维护中，请稍后重试");
+        }
+        if (pendingByStudent.merge(studentId, 1, Integer::sum) > perStudentLimit) {
+            releasePending(studentId);
+            throw new BusinessException(429, "排队中的选课请求过多，请等待结果后再提交");
+        }
+
+        CourseSelectionEngine.Result result = courseSelectionEngine.reserve(courseId, studentId);
+        if (result != CourseSelectionEngine.Result.RESERVED) {
+            releasePending(studentId);
+            switch (result) {
+                case DUPLICATE -> throw BusinessException.badRequest("已选择该课程");
+                case FULL -> throw BusinessException.badRequest("课程已满员");
+                default -> throw BusinessException.notFound("课程不存在");
+            }
+        }
+
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), studentId, courseId);
+        tickets.put(ticket.id, ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.id);
+            courseSelectionEngine.release(courseId, studentId);
+            releasePending(studentId);
+            log.warn("选课队列已满, 容量={}", capacity);
+            throw new BusinessException(503, "当前选课人数过多，请稍后重试");
+        }
+        ticket.position = queue.size();
+        // 与 stop 并发时，入队晚于停机清理的请求不会再被处理
+        if (!running && queue.remove(ticket)) {
+            fail(ticket, "系统维护中，请重新选课");
+        }
+        return ticket.toResponse();
+    }
+
+    /**
+     * 查询排队结果，wait 大于0时最多等待该毫秒数直至处理完成
+     */
+    public CompletableFuture<SelectionTicketResponse> await(String ticketId, long wait) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            throw BusinessException.notFound("选课凭据不存在或已过期");
+        }
+        long timeout = Math.min(Math.max(wait, 0), maxWait);
+        if (timeout == 0 || ticket.done.isDone()) {
+            return CompletableFuture.completedFuture(ticket.toResponse());
+        }
+        return ticket.done.copy()
+                .completeOnTimeout(null, timeout, TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> ticket.toResponse());
+    }
+
+    /**
+     * 清理已过期的排队凭据
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeTickets() {
+        long deadline = System.currentTimeMillis() - ticketTtl;
+        tickets.values().removeIf(ticket -> ticket.done.isDone() && ticket.completedAt < deadline);
+    }
+
+    private void work() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Ticket first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("排队选课处理异常", e);
+                batch.forEach(ticket -> fail(ticket, "选课失败，请稍后重试"));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 整批在同一事务中写入；整批失败时逐条重试，定位出错的请求
+     */
+    private void process(List<Ticket> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(batch));
+        } catch (RuntimeException e) {
+            log.warn("批量选课写入失败，逐条重试: {}", e.getMessage());
+            for (Ticket ticket : batch) {
+                if (ticket.done.isDone()) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(ticket)));
+                } catch (BusinessException ex) {
+                    fail(ticket, ex.getMessage());
+                } catch (RuntimeException ex) {
+                    log.error("选课写入失败: {} -> {}", ticket.studentId, ticket.courseId, ex);
+                    fail(ticket, "选课失败，请稍后重试");
+                }
+            }
+        }
+    }
+
+    private void persist(List<Ticket> batch) {
+        Map<Long, Student> students = studentRepository.findAllById(
+                        batch.stream().map(ticket -> ticket.studentId).distinct().toList()).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        Map<Long, Course> courses = courseRepository.findAllById(
+                        batch.stream().map(ticket -> ticket.courseId).distinct().toList()).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+
+        List<Ticket> accepted = new ArrayList<>(batch.size());
+        List<Score> scores = new ArrayList<>(batch.size());
+        for (Ticket ticket : batch) {
+            Student student = students.get(ticket.studentId);
+            Course course = courses.get(ticket.courseId);
+            if (student == null) {
+                fail(ticket, "学生不存在");
+            } else if (course == null) {
+                fail(ticket, "课程不存在");
+            } else {
+                accepted.add(ticket);
+                scores.add(Score.builder()
+                        .student(student)
+                        .course(course)
+                        .semester(course.getSemester())
+                        .status(0) // 未录入成绩
+                        .build());
+            }
+        }
+
+        List<Score> saved = scoreRepository.saveAll(scores);
+        pagedQueryExecutor.invalidate(Score.class);
+        TransactionCallbacks.afterCommit(() -> {
+            for (int i = 0; i < accepted.size(); i++) {
+                succeed(accepted.get(i), saved.get(i).getId());
+            }
+        });
+    }
+
+    private void succeed(Ticket ticket, Long scoreId) {
+        ticket.scoreId = scoreId;
+        ticket.message = "选课成功";
+        complete(ticket, SUCCESS);
+    }
+
+    private void fail(Ticket ticket, String message) {
+        ticket.message = message;
+        if (complete(ticket, FAILED)) {
+            courseSelectionEngine.release(ticket.courseId, ticket.studentId);
+        }
+    }
+
+    private boolean complete(Ticket ticket, String status) {
+        if (ticket.done.isDone()) {
+            return false;
+        }
+        ticket.status = status;
+        ticket.completedAt = System.currentTimeMillis();
+        if (!ticket.done.complete(null)) {
+            return false;
+        }
+        releasePending(ticket.studentId);
+        return true;
+    }
+
+    private void releasePending(Long studentId) {
+        pendingByStudent.computeIfPresent(studentId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 排队凭据，仅由处理该批次的工作线程修改
+     */
+    private static final class Ticket {
+
+        private final String id;
+        private final Long studentId;
+        private final Long courseId;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private volatile String status = PENDING;
+        private volatile String message;
+        private volatile Long scoreId;
+        private volatile int position;
+        private volatile long completedAt;
+
+        private Ticket(String id, Long studentId, Long courseId) {
+            this.id = id;
+            this.studentId = studentId;
+            this.courseId = courseId;
+        }
+
+        private SelectionTicketResponse toResponse() {
+            return SelectionTicketResponse.builder()
+                    .ticketId(id)
+                    .studentId(studentId)
+                    .courseId(courseId)
+                    .status(status)
+                    .message(message)
+                    .scoreId(scoreId)
+                    .position(position)
+                    .createdAt(createdAt)
+                    .build();
+        }
+    }
+}
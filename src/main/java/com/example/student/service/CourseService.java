@@ -7,10 +7,11 @@ import com.example.student.entity.Teacher;
 import com.example.student.exception.BusinessException;
 import com.example.student.repository.CourseRepository;
 import com.example.student.repository.TeacherRepository;
+import com.example.student.util.KeysetCursor;
 import com.example.student.util.PageVO;
+import com.example.student.util.TransactionCallbacks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -21,6 +22,7 @@ import org.springframework.util.StringUtils;
 
 import jakarta.persistence.criteria.Predicate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -34,19 +36,43 @@ public class CourseService {
 
     private final CourseRepository courseRepository;
     private final TeacherRepository teacherRepository;
+    private final CourseSelectionEngine courseSelectionEngine;
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final KeywordSearchIndex keywordSearchIndex;
+    private final SuggestIndex suggestIndex;
+    private final DashboardAggregates dashboardAggregates;
 
     /**
      * 分页查询课程
      */
     public PageVO<CourseResponse> findPage(Integer page, Integer size, String keyword, 
-                                           Integer courseType, Long teacherId, String semester) {
+                                           Integer courseType, Long teacherId, String semester, boolean estimate) {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
-        Specification<Course> spec = (root, query, cb) -> {
+        Specification<Course> spec = buildSpec(keyword, courseType, teacherId, semester);
+        List<Object> filters = Arrays.asList(keyword, courseType, teacherId, semester);
+        return pagedQueryExecutor.findPage(Course.class, spec, pageable, filters, estimate, this::toResponse);
+    }
+
+    /**
+     * 游标分页查询课程，withTotal 为 false 时不执行 count 查询
+     */
+    public PageVO<CourseResponse> findCursorPage(String cursor, Integer size,
+                                                 String keyword, Integer courseType, Long teacherId, String semester, boolean withTotal) {
+        int pageSize = KeysetCursor.size(size);
+        Specification<Course> spec = buildSpec(keyword, courseType, teacherId, semester);
+        List<Course> rows = courseRepository.findBy(spec.and(KeysetCursor.after(cursor)),
+                query -> query.sortBy(KeysetCursor.SORT).limit(pageSize + 1).all());
+        Long total = withTotal ? courseRepository.count(spec.and(KeysetCursor.after(null))) : null;
+        return KeysetCursor.toPage(rows, pageSize, this::toResponse, total);
+    }
+
+    private Specification<Course> buildSpec(String keyword, Integer courseType, Long teacherId, String semester) {
+        List<Long> keywordIds = keywordSearchIndex.searchForFilter(KeywordSearchIndex.Type.COURSE, keyword);
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("isDeleted"), false));
-            
-            if (StringUtils.hasText(keyword)) {
+            if (keywordIds != null) {
+                predicates.add(keywordIds.isEmpty() ? cb.disjunction() : root.get("id").in(keywordIds));
+            } else if (StringUtils.hasText(keyword)) {
                 Predicate nameLike = cb.like(root.get("courseName"), "%" + keyword + "%");
                 Predicate codeLike = cb.like(root.get("courseCode"), "%" + keyword + "%");
                 predicates.add(cb.or(nameLike, codeLike));
@@ -62,13 +88,6 @@ public class CourseService {
             }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-        
-        Page<Course> pageResult = courseRepository.findAll(spec, pageable);
-        List<CourseResponse> records = pageResult.getContent().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        
-        return PageVO.fromPage(pageResult, records);
     }
 
     /**
@@ -76,7 +95,6 @@ public class CourseService {
      */
     public List<CourseResponse> findAll() {
         return courseRepository.findAll().stream()
-                .filter(c -> !c.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -86,7 +104,6 @@ public class CourseService {
      */
     public List<CourseResponse> findAvailableCourses() {
         return courseRepository.findAvailableCourses().stream()
-                .filter(c -> !c.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -96,7 +113,6 @@ public class CourseService {
      */
     public List<CourseResponse> findByTeacherId(Long teacherId) {
         return courseRepository.findByTeacherId(teacherId).stream()
-                .filter(c -> !c.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -140,6 +156,13 @@ public class CourseService {
         }
 
         course = courseRepository.save(course);
+        Course created = course;
+        TransactionCallbacks.afterCommit(() -> courseSelectionEngine.register(created.getId(), created.getMaxStudents()));
+        pagedQueryExecutor.invalidate(Course.class);
+        dashboardAggregates.courseChanged(null, DashboardAggregates.CourseFacts.of(course));
+        suggestIndex.put(SuggestIndex.Type.COURSE, course.getId(), course.getCourseName(), course.getCourseCode());
+        keywordSearchIndex.put(KeywordSearchIndex.Type.COURSE, course.getId(),
+                course.getCourseName(), course.getCourseCode());
         log.info("创建课程成功: {}", course.getCourseName());
         return toResponse(course);
     }
@@ -151,6 +174,7 @@ public class CourseService {
     public CourseResponse update(Long id, CourseRequest request) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> BusinessException.notFound("课程不存在"));
+        DashboardAggregates.CourseFacts before = DashboardAggregates.CourseFacts.of(course);
 
         // 检查课程编号是否被其他课程使用
         if (!course.getCourseCode().equals(request.getCourseCode()) &&
@@ -169,7 +193,19 @@ public class CourseService {
             course.setTeacher(null);
         }
 
+        // 选课人数由选课引擎维护，避免用加载时的旧值覆盖；引擎未加载该课程时保留数据库中的值
+        Integer selectedCount = courseSelectionEngine.getSelectedCount(id);
+        if (selectedCount != null) {
+            course.setCurrentStudents(selectedCount);
+        }
         course = courseRepository.save(course);
+        Integer maxStudents = course.getMaxStudents();
+        TransactionCallbacks.afterCommit(() -> courseSelectionEngine.updateCapacity(id, maxStudents));
+        pagedQueryExecutor.invalidate(Course.class);
+        dashboardAggregates.courseChanged(before, DashboardAggregates.CourseFacts.of(course));
+        suggestIndex.put(SuggestIndex.Type.COURSE, course.getId(), course.getCourseName(), course.getCourseCode());
+        keywordSearchIndex.put(KeywordSearchIndex.Type.COURSE, course.getId(),
+                course.getCourseName(), course.getCourseCode());
         log.info("更新课程成功: {}", course.getCourseName());
         return toResponse(course);
     }
@@ -183,6 +219,11 @@ public class CourseService {
                 .orElseThrow(() -> BusinessException.notFound("课程不存在"));
         course.setIsDeleted(true);
         courseRepository.save(course);
+        TransactionCallbacks.afterCommit(() -> courseSelectionEngine.remove(id));
+        pagedQueryExecutor.invalidate(Course.class);
+        dashboardAggregates.courseChanged(DashboardAggregates.CourseFacts.of(course), null);
+        suggestIndex.remove(SuggestIndex.Type.COURSE, course.getId());
+        keywordSearchIndex.remove(KeywordSearchIndex.Type.COURSE, course.getId());
         log.info("删除课程成功: {}", course.getCourseName());
     }
 
@@ -195,11 +236,15 @@ public class CourseService {
     }
 
     /**
-     * 搜索课程
+     * 搜索课程，按ID倒序最多返回 search-index.max-results 条
      */
     public List<CourseResponse> search(String keyword) {
-        return courseRepository.searchByKeyword(keyword).stream()
-                .filter(c -> !c.getIsDeleted())
+        List<Long> ids = keywordSearchIndex.search(KeywordSearchIndex.Type.COURSE, keyword);
+        List<Course> courses = ids != null
+                ? KeywordSearchIndex.sortByIds(ids, courseRepository.findAllById(ids), Course::getId)
+                : courseRepository.searchByKeyword(keyword,
+                        PageRequest.of(0, keywordSearchIndex.getMaxResults()));
+        return courses.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
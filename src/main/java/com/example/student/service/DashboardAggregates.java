@@ -0,0 +1,472 @@
+package com.example.student.service;
+
+import com.example.student.dto.response.DashboardStats;
+import com.example.student.entity.Clazz;
+import com.example.student.entity.Course;
+import com.example.student.entity.Student;
+import com.example.student.entity.Teacher;
+import com.example.student.exception.BusinessException;
+import com.example.student.repository.ClazzRepository;
+import com.example.student.repository.CourseRepository;
+import com.example.student.repository.StudentRepository;
+import com.example.student.repository.TeacherRepository;
+import com.example.student.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 仪表盘统计聚合
+ * 学生、教师、班级、课程的各项计数常驻内存，由各服务的写操作在事务提交后按变更前后的差值增量更新，
+ * 并定期与数据库重新核对；仪表盘直接读取内存快照，不再每次执行 COUNT 和 GROUP BY。
+ * 从数据库加载时各统计查询在有界线程池中并行执行，每个查询使用独立的只读事务，
+ * 并发的加载请求共享同一次加载
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DashboardAggregates {
+
+    // 加载时并行执行的统计查询数
+    private static final int LOAD_QUERIES = 7;
+
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final ClazzRepository clazzRepository;
+    private final CourseRepository courseRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${dashboard.parallel-load:true}")
+    private boolean parallelLoad;
+
+    @Value("${dashboard.load-threads:4}")
+    private int loadThreads;
+
+    @Value("${dashboard.load-timeout:5000}")
+    private long loadTimeout;
+
+    private ThreadPoolExecutor loadExecutor;
+    private TransactionTemplate readOnlyTemplate;
+
+    // 正在进行的加载，同一时刻只有一次数据库加载，其余调用方等待同一结果
+    private final Object loadLock = new Object();
+    private CompletableFuture<State> inFlight;
+
+    // 所有计数只在持有本对象锁时修改
+    private State state;
+
+    // 每次增量更新都会递增，核对期间有更新时放弃本次核对结果
+    private long version;
+
+    // 计数变化后置空，下次读取时重新生成
+    private volatile DashboardStats snapshot;
+
+    @PostConstruct
+    public void init() {
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+        readOnlyTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (parallelLoad) {
+            AtomicInteger index = new AtomicInteger();
+            this.loadExecutor = new ThreadPoolExecutor(loadThreads, loadThreads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(LOAD_QUERIES * 2),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "dashboard-load-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            loadExecutor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (loadExecutor != null) {
+            loadExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取仪表盘统计，尚未加载时先从数据库加载
+     */
+    public DashboardStats getDashboardStats() {
+        DashboardStats current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (state != null) {
+                snapshot = state.toStats();
+                return snapshot;
+            }
+        }
+        State loaded = load();
+        synchronized (this) {
+            if (state == null) {
+                state = loaded;
+            }
+            if (snapshot == null) {
+                snapshot = state.toStats();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * 与数据库重新核对全部计数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${dashboard.reconcile-interval:300000}",
+            initialDelayString = "${dashboard.reconcile-interval:300000}")
+    public void reconcile() {
+        long startVersion;
+        synchronized (this) {
+            startVersion = version;
+        }
+        State loaded;
+        try {
+            loaded = load();
+        } catch (BusinessException e) {
+            log.warn("仪表盘统计核对失败: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            if (version != startVersion) {
+                log.debug("仪表盘统计核对期间有数据变更，等待下次核对");
+                return;
+            }
+            if (state != null && !state.sameCounts(loaded)) {
+                log.warn("仪表盘统计与数据库不一致，已按数据库校正");
+            }
+            state = loaded;
+            snapshot = null;
+        }
+    }
+
+    /**
+     * 学生变更，新增时 before 为 null，删除时 after 为 null
+     */
+    public void studentChanged(StudentFacts before, StudentFacts after) {
+        apply(() -> {
+            if (before != null) {
+                state.addStudent(before, -1);
+            }
+            if (after != null) {
+                state.addStudent(after, 1);
+            }
+        });
+    }
+
+    /**
+     * 教师变更，新增时 before 为 null，删除时 after 为 null
+     */
+    public void teacherChanged(TeacherFacts before, TeacherFacts after) {
+        apply(() -> {
+            if (before != null && isActive(before.status())) {
+                state.activeTeachers--;
+            }
+            if (after != null && isActive(after.status())) {
+                state.activeTeachers++;
+            }
+        });
+    }
+
+    /**
+     * 班级变更，删除时 after 为 null
+     */
+    public void classChanged(Long classId, ClassFacts after) {
+        apply(() -> {
+            if (after != null) {
+                state.classNames.put(classId, after.className());
+            } else {
+                state.classNames.remove(classId);
+            }
+        });
+    }
+
+    /**
+     * 课程变更，新增时 before 为 null，删除时 after 为 null
+     */
+    public void courseChanged(CourseFacts before, CourseFacts after) {
+        apply(() -> {
+            if (before != null) {
+                state.courseCount--;
+                state.coursesByType.merge(typeKey(before.courseType()), -1L, Long::sum);
+            }
+            if (after != null) {
+                state.courseCount++;
+                state.coursesByType.merge(typeKey(after.courseType()), 1L, Long::sum);
+            }
+        });
+    }
+
+    private void apply(Runnable change) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                version++;
+                if (state == null) {
+                    // 尚未加载，首次读取时会从数据库加载到最新值
+                    return;
+                }
+                change.run();
+                snapshot = null;
+            }
+        });
+    }
+
+    /**
+     * 从数据库加载全部计数，并发调用时共享同一次加载
+     */
+    private State load() {
+        CompletableFuture<State> future;
+        boolean owner = false;
+        synchronized (loadLock) {
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                owner = true;
+            }
+            future = inFlight;
+        }
+        if (owner) {
+            try {
+                future.complete(loadFromDatabase());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (loadLock) {
+                    inFlight = null;
+                }
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private State loadFromDatabase() {
+        long start = System.currentTimeMillis();
+        CompletableFuture<Long> activeStudents = query(studentRepository::countActiveStudents);
+        CompletableFuture<Long> activeTeachers = query(teacherRepository::countActiveTeachers);
+        CompletableFuture<Long> courseCount = query(courseRepository::countAllCourses);
+        CompletableFuture<List<Object[]>> classNames = query(clazzRepository::findAllClassNames);
+        CompletableFuture<List<Object[]>> studentsByClass = query(studentRepository::countStudentsByClassId);
+        CompletableFuture<List<Object[]>> studentsByGender = query(studentRepository::countStudentsByGender);
+        CompletableFuture<List<Object[]>> coursesByType = query(courseRepository::countCoursesByType);
+        CompletableFuture<Void> all = CompletableFuture.allOf(activeStudents, activeTeachers, courseCount,
+                classNames, studentsByClass, studentsByGender, coursesByType);
+        try {
+            all.get(loadTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            all.cancel(true);
+            throw new BusinessException(503, "统计数据加载超时，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(503, "统计数据加载被中断");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+
+        State loaded = new State();
+        loaded.activeStudents = activeStudents.join();
+        loaded.activeTeachers = activeTeachers.join();
+        loaded.courseCount = courseCount.join();
+        for (Object[] row : classNames.join()) {
+            loaded.classNames.put(((Number) row[0]).longValue(), (String) row[1]);
+        }
+        for (Object[] row : studentsByClass.join()) {
+            loaded.studentsByClass.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        for (Object[] row : studentsByGender.join()) {
+            loaded.studentsByGender.merge(genderKey(toInteger(row[0])), ((Number) row[1]).longValue(), Long::sum);
+        }
+        for (Object[] row : coursesByType.join()) {
+            loaded.coursesByType.merge(typeKey(toInteger(row[0])), ((Number) row[1]).longValue(), Long::sum);
+        }
+        log.debug("仪表盘统计已从数据库加载, 耗时{}ms", System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    /**
+     * 在独立的只读事务中执行一个统计查询，未开启并行加载时在当前线程执行
+     */
+    private <T> CompletableFuture<T> query(Supplier<T> supplier) {
+        Executor executor = loadExecutor != null ? loadExecutor : Runnable::run;
+        return CompletableFuture.supplyAsync(() -> readOnlyTemplate.execute(status -> supplier.get()), executor);
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null ? ((Number) value).intValue() : null;
+    }
+
+    private static boolean isActive(Integer status) {
+        return Objects.equals(status, 1);
+    }
+
+    private static int genderKey(Integer gender) {
+        return gender == null || gender < 1 || gender > 2 ? 0 : gender;
+    }
+
+    private static int typeKey(Integer courseType) {
+        return courseType == null || courseType < 1 || courseType > 3 ? 0 : courseType;
+    }
+
+    /**
+     * 学生参与统计的字段
+     */
+    public record StudentFacts(Integer status, Long classId, Integer gender) {
+
+        public static StudentFacts of(Student student) {
+            return new StudentFacts(student.getStatus(),
+                    student.getClazz() != null ? student.getClazz().getId() : null, student.getGender());
+        }
+    }
+
+    /**
+     * 教师参与统计的字段
+     */
+    public record TeacherFacts(Integer status) {
+
+        public static TeacherFacts of(Teacher teacher) {
+            return new TeacherFacts(teacher.getStatus());
+        }
+    }
+
+    /**
+     * 班级参与统计的字段
+     */
+    public record ClassFacts(String className) {
+
+        public static ClassFacts of(Clazz clazz) {
+            return new ClassFacts(clazz.getClassName());
+        }
+    }
+
+    /**
+     * 课程参与统计的字段
+     */
+    public record CourseFacts(Integer courseType) {
+
+        public static CourseFacts of(Course course) {
+            return new CourseFacts(course.getCourseType());
+        }
+    }
+
+    /**
+     * 全部计数，按ID和编码有序存放以保证图表顺序稳定
+     */
+    private static final class State {
+
+        private long activeStudents;
+        private long activeTeachers;
+        private long courseCount;
+        private final Map<Long, String> classNames = new TreeMap<>();
+        private final Map<Long, Long> studentsByClass = new TreeMap<>();
+        private final Map<Integer, Long> studentsByGender = new TreeMap<>();
+        private final Map<Integer, Long> coursesByType = new TreeMap<>();
+
+        private void addStudent(StudentFacts facts, long delta) {
+            if (isActive(facts.status())) {
+                activeStudents += delta;
+            }
+            if (facts.classId() != null) {
+                studentsByClass.merge(facts.classId(), delta, Long::sum);
+            }
+            studentsByGender.merge(genderKey(facts.gender()), delta, Long::sum);
+        }
+
+        private DashboardStats toStats() {
+            List<DashboardStats.ChartData> byClass = new ArrayList<>();
+            studentsByClass.forEach((classId, count) -> {
+                String className = classNames.get(classId);
+                // 已删除的班级不再展示，与按班级关联统计的结果一致
+                if (className != null && count > 0) {
+                    byClass.add(chart(className, count));
+                }
+            });
+
+            List<DashboardStats.ChartData> byGender = new ArrayList<>();
+            studentsByGender.forEach((gender, count) -> {
+                if (count > 0) {
+                    byGender.add(chart(switch (gender) {
+                        case 1 -> "男";
+                        case 2 -> "女";
+                        default -> "未知";
+                    }, count));
+                }
+            });
+
+            List<DashboardStats.ChartData> byType = new ArrayList<>();
+            coursesByType.forEach((type, count) -> {
+                if (count > 0) {
+                    byType.add(chart(switch (type) {
+                        case 1 -> "必修课";
+                        case 2 -> "选修课";
+                        case 3 -> "公选课";
+                        default -> "其他";
+                    }, count));
+                }
+            });
+
+            return DashboardStats.builder()
+                    .studentCount(activeStudents)
+                    .teacherCount(activeTeachers)
+                    .classCount((long) classNames.size())
+                    .courseCount(courseCount)
+                    .studentsByClass(List.copyOf(byClass))
+                    .studentsByGender(List.copyOf(byGender))
+                    .coursesByType(List.copyOf(byType))
+                    .build();
+        }
+
+        private static DashboardStats.ChartData chart(String name, long value) {
+            return DashboardStats.ChartData.builder()
+                    .name(name)
+                    .value(value)
+                    .build();
+        }
+
+        private boolean sameCounts(State that) {
+            return activeStudents == that.activeStudents
+                    && activeTeachers == that.activeTeachers
+                    && courseCount == that.courseCount
+                    && classNames.equals(that.classNames)
+                    && withoutZeros(studentsByClass).equals(withoutZeros(that.studentsByClass))
+                    && withoutZeros(studentsByGender).equals(withoutZeros(that.studentsByGender))
+                    && withoutZeros(coursesByType).equals(withoutZeros(that.coursesByType));
+        }
+
+        private static <K> Map<K, Long> withoutZeros(Map<K, Long> counts) {
+            Map<K, Long> result = new TreeMap<>(counts);
+            result.values().removeIf(count -> count == 0);
+            return result;
+        }
+    }
+}
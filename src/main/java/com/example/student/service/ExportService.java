@@ -0,0 +1,142 @@
+package com.example.student.service;
+
+import com.example.student.dto.response.CourseResponse;
+import com.example.student.dto.response.ScoreResponse;
+import com.example.student.dto.response.StudentResponse;
+import com.example.student.repository.CourseRepository;
+import com.example.student.repository.ScoreRepository;
+import com.example.student.repository.StudentRepository;
+import com.example.student.util.SheetWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 数据导出服务
+ * 以游标方式逐行读取投影结果并直接写入输出流，不在内存中累积整表数据
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final List<Column<StudentResponse>> STUDENT_COLUMNS = List.of(
+            new Column<>("id", "ID", StudentResponse::getId),
+            new Column<>("studentNo", "学号", StudentResponse::getStudentNo),
+            new Column<>("name", "姓名", StudentResponse::getName),
+            new Column<>("gender", "性别", StudentResponse::getGender),
+            new Column<>("birthDate", "出生日期", StudentResponse::getBirthDate),
+            new Column<>("idCard", "身份证号", StudentResponse::getIdCard),
+            new Column<>("phone", "电话", StudentResponse::getPhone),
+            new Column<>("email", "邮箱", StudentResponse::getEmail),
+            new Column<>("address", "家庭住址", StudentResponse::getAddress),
+            new Column<>("nativePlace", "籍贯", StudentResponse::getNativePlace),
+            new Column<>("nation", "民族", StudentResponse::getNation),
+            new Column<>("politicalStatus", "政治面貌", StudentResponse::getPoliticalStatus),
+            new Column<>("className", "班级", StudentResponse::getClassName),
+            new Column<>("enrollmentDate", "入学日期", StudentResponse::getEnrollmentDate),
+            new Column<>("graduationDate", "毕业日期", StudentResponse::getGraduationDate),
+            new Column<>("status", "状态", StudentResponse::getStatus),
+            new Column<>("remark", "备注", StudentResponse::getRemark),
+            new Column<>("createdAt", "创建时间", StudentResponse::getCreatedAt));
+
+    private static final List<Column<ScoreResponse>> SCORE_COLUMNS = List.of(
+            new Column<>("id", "ID", ScoreResponse::getId),
+            new Column<>("studentNo", "学号", ScoreResponse::getStudentNo),
+            new Column<>("studentName", "姓名", ScoreResponse::getStudentName),
+            new Column<>("courseCode", "课程编号", ScoreResponse::getCourseCode),
+            new Column<>("courseName", "课程名称", ScoreResponse::getCourseName),
+            new Column<>("credit", "学分", ScoreResponse::getCredit),
+            new Column<>("usualScore", "平时成绩", ScoreResponse::getUsualScore),
+            new Column<>("midtermScore", "期中成绩", ScoreResponse::getMidtermScore),
+            new Column<>("finalScore", "期末成绩", ScoreResponse::getFinalScore),
+            new Column<>("totalScore", "总成绩", ScoreResponse::getTotalScore),
+            new Column<>("gpa", "绩点", ScoreResponse::getGpa),
+            new Column<>("semester", "学期", ScoreResponse::getSemester),
+            new Column<>("status", "状态", ScoreResponse::getStatus),
+            new Column<>("remark", "备注", ScoreResponse::getRemark));
+
+    private static final List<Column<CourseResponse>> COURSE_COLUMNS = List.of(
+            new Column<>("id", "ID", CourseResponse::getId),
+            new Column<>("courseCode", "课程编号", CourseResponse::getCourseCode),
+            new Column<>("courseName", "课程名称", CourseResponse::getCourseName),
+            new Column<>("credit", "学分", CourseResponse::getCredit),
+            new Column<>("hours", "学时", CourseResponse::getHours),
+            new Column<>("courseType", "课程类型", CourseResponse::getCourseType),
+            new Column<>("teacherName", "授课教师", CourseResponse::getTeacherName),
+            new Column<>("department", "开课院系", CourseResponse::getDepartment),
+            new Column<>("semester", "学期", CourseResponse::getSemester),
+            new Column<>("maxStudents", "最大选课人数", CourseResponse::getMaxStudents),
+            new Column<>("currentStudents", "当前选课人数", CourseResponse::getCurrentStudents),
+            new Column<>("status", "状态", CourseResponse::getStatus));
+
+    private final StudentRepository studentRepository;
+    private final ScoreRepository scoreRepository;
+    private final CourseRepository courseRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 导出学生
+     */
+    @Transactional(readOnly = true)
+    public void exportStudents(SheetWriter.Format format, OutputStream out) throws IOException {
+        try (Stream<StudentResponse> rows = studentRepository.streamAllForExport()) {
+            long count = write(format, out, STUDENT_COLUMNS, rows);
+            log.info("导出学生完成: {}条", count);
+        }
+    }
+
+    /**
+     * 导出成绩，可按课程和学期筛选
+     */
+    @Transactional(readOnly = true)
+    public void exportScores(SheetWriter.Format format, OutputStream out, Long courseId, String semester)
+            throws IOException {
+        try (Stream<ScoreResponse> rows = scoreRepository.streamForExport(courseId, semester)) {
+            long count = write(format, out, SCORE_COLUMNS, rows);
+            log.info("导出成绩完成: {}条", count);
+        }
+    }
+
+    /**
+     * 导出课程
+     */
+    @Transactional(readOnly = true)
+    public void exportCourses(SheetWriter.Format format, OutputStream out) throws IOException {
+        try (Stream<CourseResponse> rows = courseRepository.streamAllForExport()) {
+            long count = write(format, out, COURSE_COLUMNS, rows);
+            log.info("导出课程完成: {}条", count);
+        }
+    }
+
+    private <T> long write(SheetWriter.Format format, OutputStream out, List<Column<T>> columns, Stream<T> rows)
+            throws IOException {
+        List<String> keys = columns.stream().map(Column::key).toList();
+        List<String> titles = columns.stream().map(Column::title).toList();
+        long count = 0;
+        try (SheetWriter writer = SheetWriter.open(format, out, keys, titles, objectMapper)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                writer.writeRow(columns.stream().map(column -> column.getter().apply(row)).toList());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 导出列定义
+     */
+    private record Column<T>(String key, String title, Function<T, Object> getter) {
+    }
+}
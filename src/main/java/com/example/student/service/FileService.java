@@ -1,37 +1,68 @@
 package com.example.student.service;
 
+import com.example.student.entity.FileBlob;
 import com.example.student.exception.BusinessException;
+import com.example.student.repository.FileBlobRepository;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * 文件上传服务
+ * 开启去重时按内容的 SHA-256 摘要存储：上传流在写入临时文件的同时计算摘要，
+ * 同一分类下内容和扩展名都相同的文件只保存一份并记录引用次数，删除时引用减到 0 才删除文件；
+ * 引用计数与文件移动/删除的串行化依赖进程内的锁，多个实例共享上传目录时不能开启去重
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class FileService {
 
+    private static final String BLOB_DIR = "blobs";
+    private static final String TEMP_DIR = "tmp";
+
+    // 同一摘要的入库、引用计数和文件移动/删除串行执行
+    private static final int LOCK_STRIPES = 64;
+
+    private final FileBlobRepository fileBlobRepository;
+    private final ImageVariantService imageVariantService;
+
+    private final Object[] locks = createLocks();
+
     @Value("${file.upload-dir:./uploads}")
     private String uploadDir;
 
     @Value("${file.max-size:10485760}")
     private long maxFileSize;
 
+    @Value("${file.dedup-enabled:true}")
+    private boolean dedupEnabled;
+
     // 允许的图片类型
     private static final List<String> ALLOWED_IMAGE_TYPES = Arrays.asList(
             "image/jpeg", "image/png", "image/gif", "image/webp"
@@ -53,6 +84,7 @@ public class FileService {
             if (!Files.exists(uploadPath)) {
                 Files.createDirectories(uploadPath);
             }
+            Files.createDirectories(uploadPath.resolve(TEMP_DIR));
             log.info("文件上传目录: {}", uploadPath.toAbsolutePath());
         } catch (IOException e) {
             throw new RuntimeException("无法创建上传目录", e);
@@ -64,7 +96,9 @@ public class FileService {
      */
     public String uploadImage(MultipartFile file) {
         validateFile(file, ALLOWED_IMAGE_TYPES);
-        return saveFile(file, "images");
+        String fileUrl = saveFile(file, "images");
+        imageVariantService.scheduleAll(fileUrl);
+        return fileUrl;
     }
 
     /**
@@ -80,7 +114,9 @@ public class FileService {
      */
     public String uploadAvatar(MultipartFile file) {
         validateFile(file, ALLOWED_IMAGE_TYPES);
-        return saveFile(file, "avatars");
+        String fileUrl = saveFile(file, "avatars");
+        imageVariantService.scheduleAll(fileUrl);
+        return fileUrl;
     }
 
     /**
@@ -98,12 +134,20 @@ public class FileService {
 
     /**
      * 删除文件
+     * 按内容存储的文件只减少一次引用，最后一个引用删除时才删除文件
      */
     public boolean deleteFile(String fileUrl) {
+        Optional<FileBlob> blob = fileBlobRepository.findByUrl(fileUrl);
+        if (blob.isPresent()) {
+            return releaseBlob(blob.get());
+        }
         try {
             // 从URL中提取相对路径
             String relativePath = fileUrl.replace("/uploads/", "");
             Path filePath = Paths.get(uploadDir, relativePath);
+            // 同时删除预压缩版本
+            Files.deleteIfExists(filePath.resolveSibling(filePath.getFileName() + ".gz"));
+            imageVariantService.deleteVariants(relativePath);
             return Files.deleteIfExists(filePath);
         } catch (IOException e) {
             log.error("删除文件失败: {}", fileUrl, e);
@@ -131,6 +175,9 @@ public class FileService {
      * 保存文件
      */
     private String saveFile(MultipartFile file, String subDir) {
+        if (dedupEnabled) {
+            return saveBlob(file, subDir);
+        }
         try {
             // 生成日期目录
             String dateDir = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
@@ -159,6 +206,113 @@ public class FileService {
         }
     }
 
+    /**
+     * 按内容摘要保存到 {分类}/blobs/ 下，同一分类下内容和扩展名相同的文件已存在时只增加引用次数，返回已有文件的URL
+     */
+    private String saveBlob(MultipartFile file, String subDir) {
+        String originalFilename = StringUtils.cleanPath(String.valueOf(file.getOriginalFilename()));
+        Path tempFile = null;
+        try {
+            // 复制到临时文件的同时计算摘要，只读一遍上传流
+            tempFile = Files.createTempFile(Paths.get(uploadDir, TEMP_DIR), "upload-", ".tmp");
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hex = HexFormat.of().formatHex(digest.digest());
+
+            // 存储路径由分类、摘要和扩展名决定，扩展名和内容类型不会沿用其他上传者的
+            String storagePath = subDir + "/" + BLOB_DIR + "/" + hex.substring(0, 2) + "/" + hex
+                    + getFileExtension(originalFilename).toLowerCase(Locale.ROOT);
+            String fileUrl = "/uploads/" + storagePath;
+
+            synchronized (lockFor(hex)) {
+                Optional<FileBlob> existing = fileBlobRepository.findByUrl(fileUrl);
+                if (existing.isPresent() && fileBlobRepository.incrementRefCount(existing.get().getId()) > 0) {
+                    log.info("文件内容已存在: {} -> {}", originalFilename, fileUrl);
+                    return fileUrl;
+                }
+
+                Path target = Paths.get(uploadDir, storagePath);
+                Files.createDirectories(target.getParent());
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+
+                try {
+                    fileBlobRepository.save(FileBlob.builder()
+                            .digest(hex)
+                            .url(fileUrl)
+                            .storagePath(storagePath)
+                            .fileSize(Files.size(target))
+                            .contentType(MediaTypeFactory.getMediaType(storagePath)
+                                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString())
+                            .refCount(1)
+                            .build());
+                } catch (DataIntegrityViolationException e) {
+                    // URL 唯一索引冲突时改为增加已登记记录的引用
+                    FileBlob registered = fileBlobRepository.findByUrl(fileUrl)
+                            .orElseThrow(() -> BusinessException.of("文件上传失败，请重试"));
+                    fileBlobRepository.incrementRefCount(registered.getId());
+                    return fileUrl;
+                }
+                log.info("文件上传成功: {} -> {}", originalFilename, fileUrl);
+                return fileUrl;
+            }
+        } catch (IOException e) {
+            log.error("文件上传失败", e);
+            throw BusinessException.of("文件上传失败: " + e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("删除临时文件失败: {}", tempFile, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 释放一次引用，引用减到 0 时删除记录和文件
+     */
+    private boolean releaseBlob(FileBlob blob) {
+        synchronized (lockFor(blob.getDigest())) {
+            if (fileBlobRepository.decrementRefCount(blob.getId()) == 0) {
+                return false;
+            }
+            if (fileBlobRepository.deleteIfUnreferenced(blob.getId()) > 0) {
+                try {
+                    Files.deleteIfExists(Paths.get(uploadDir, blob.getStoragePath()));
+                    Files.deleteIfExists(Paths.get(uploadDir, blob.getStoragePath() + ".gz"));
+                    imageVariantService.deleteVariants(blob.getStoragePath());
+                    log.info("文件已删除: {}", blob.getUrl());
+                } catch (IOException e) {
+                    log.error("删除文件失败: {}", blob.getUrl(), e);
+                }
+            }
+            return true;
+        }
+    }
+
+    private Object lockFor(String digest) {
+        return locks[Math.floorMod(digest.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Object[] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * 获取文件扩展名
      */
@@ -0,0 +1,251 @@
+package com.example.student.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 上传文件下载服务
+ * 直接向响应写文件：Tomcat 支持 sendfile 时交给容器零拷贝发送，否则用 FileChannel.transferTo；
+ * 支持 Range 断点续传、ETag/Last-Modified 条件请求，文件名为 UUID 或内容摘要的文件内容不会变化，
+ * 按不可变资源长期缓存；请求接受 gzip 且存在同名 .gz 文件时直接发送预压缩版本；
+ * thumbs/{尺寸}/ 开头的路径发送对应原图的缩略图；文件不存在时返回 HTTP 404。
+ * /uploads/** 不在安全白名单中，与改由控制器发送之前一样需要登录才能访问
+ */
+@Service
+@RequiredArgsConstructor
+public class FileServingService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 小文件直接写出比交给 sendfile 更快
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private static final Pattern UUID_NAME = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}(\\.[A-Za-z0-9]+)?");
+    private static final Pattern DIGEST_NAME = Pattern.compile("([0-9a-f]{64})(\\.[A-Za-z0-9]+)?");
+
+    private final ImageVariantService imageVariantService;
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    @Value("${file.cache-max-age:31536000}")
+    private long cacheMaxAge;
+
+    @Value("${file.precompressed-enabled:true}")
+    private boolean precompressedEnabled;
+
+    /**
+     * 发送上传目录下的文件，relativePath 为 /uploads/ 之后的路径
+     */
+    public void serve(String relativePath, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (relativePath.startsWith(ImageVariantService.THUMB_DIR + "/")) {
+            serveThumbnail(relativePath.substring(ImageVariantService.THUMB_DIR.length() + 1), request, response);
+            return;
+        }
+        Path file = resolve(relativePath);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        send(file, isImmutable(file), true, request, response);
+    }
+
+    /**
+     * 发送缩略图，path 为 {尺寸}/{原图路径}；缩略图尚未就绪时临时返回原图且不允许缓存
+     */
+    private void serveThumbnail(String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        int slash = path.indexOf('/');
+        int size;
+        try {
+            size = slash > 0 ? Integer.parseInt(path.substring(0, slash)) : -1;
+        } catch (NumberFormatException e) {
+            size = -1;
+        }
+        Path original = imageVariantService.isSupportedSize(size) ? resolve(path.substring(slash + 1)) : null;
+        if (original == null || !imageVariantService.isVariantSource(original)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        boolean acceptWebp = accept != null && accept.contains("image/webp");
+        Path variant = imageVariantService.getVariant(original, size, acceptWebp);
+        // 同一地址按 Accept 返回 WebP 或原格式
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (variant != null) {
+            send(variant, isImmutable(original), false, request, response);
+        } else {
+            send(original, false, false, request, response);
+        }
+    }
+
+    private void send(Path file, boolean immutable, boolean allowGzip, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        String fileName = file.getFileName().toString();
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        Path body = file;
+        boolean gzip = false;
+        if (allowGzip && precompressedEnabled && acceptsGzip(request)) {
+            Path compressed = file.resolveSibling(fileName + GZIP_SUFFIX);
+            if (Files.isRegularFile(compressed)) {
+                body = compressed;
+                gzip = true;
+            }
+        }
+        long length = Files.size(body);
+        String etag = etag(fileName, length, lastModified, gzip);
+
+        // 上传文件需登录访问，只允许浏览器私有缓存
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable
+                ? "private, max-age=" + cacheMaxAge + ", immutable" : "private, no-cache");
+        if (allowGzip) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // 多段 Range 较少见，按规范可忽略并返回完整内容
+            if (ranges.size() == 1) {
+                HttpRange httpRange = ranges.get(0);
+                if (length == 0 || httpRange.getRangeStart(length) >= length) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                start = httpRange.getRangeStart(length);
+                end = httpRange.getRangeEnd(length);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, body.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(body, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    /**
+     * 解析为上传目录下的普通文件，拒绝目录穿越和临时目录；文件不存在时返回 null
+     */
+    private Path resolve(String relativePath) {
+        Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root) || file.startsWith(root.resolve("tmp")) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * 文件名为 UUID 或内容摘要的文件内容不会变化
+     */
+    private static boolean isImmutable(Path file) {
+        String fileName = file.getFileName().toString();
+        return UUID_NAME.matcher(fileName).matches() || DIGEST_NAME.matcher(fileName).matches();
+    }
+
+    /**
+     * 内容摘要命名的文件以摘要为强 ETag，其他文件由大小和修改时间生成
+     */
+    private static String etag(String fileName, long length, long lastModified, boolean gzip) {
+        Matcher digest = DIGEST_NAME.matcher(fileName);
+        String tag = digest.matches() ? digest.group(1)
+                : Long.toHexString(length) + "-" + Long.toHexString(lastModified);
+        return "\"" + tag + (gzip ? "-gz" : "") + "\"";
+    }
+
+    /**
+     * If-Range 与当前版本不一致时忽略 Range，返回完整内容
+     */
+    private static boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && lastModified / 1000 <= date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+}
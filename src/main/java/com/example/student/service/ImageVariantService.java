@@ -0,0 +1,358 @@
+package com.example.student.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片缩略图服务
+ * 图片上传后在有界的后台线程池中按固定尺寸生成缩略图（有 WebP 编码器时另生成 WebP），
+ * 访问 /uploads/thumbs/{尺寸}/{原图路径} 即取原图对应的缩略图；同一缩略图的并发生成只执行一次，
+ * 生成失败的缩略图在一段时间内不再重试
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    public static final String THUMB_DIR = "thumbs";
+
+    private static final String VARIANT_DIR = "variants";
+    private static final String TEMP_DIR = "tmp";
+
+    private static final String WEBP = "webp";
+
+    // 可以生成缩略图的原图目录（相对上传目录）和扩展名
+    private static final List<String> SOURCE_DIRS = List.of("images", "avatars", "blobs");
+    private static final Set<String> SOURCE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "bmp");
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    @Value("${image-variant.sizes:40,120,320}")
+    private int[] sizes;
+
+    @Value("${image-variant.threads:2}")
+    private int threads;
+
+    @Value("${image-variant.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${image-variant.max-pixels:12000000}")
+    private long maxPixels;
+
+    @Value("${image-variant.wait-timeout:2000}")
+    private long waitTimeout;
+
+    @Value("${image-variant.failure-ttl:600000}")
+    private long failureTtl;
+
+    @Value("${image-variant.failure-max-size:10000}")
+    private int failureMaxSize;
+
+    // 变体文件路径 -> 正在进行的生成，完成后移除
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    // 变体文件路径 -> 生成失败的时间，有效期内直接返回原图，不再解码
+    private final Map<Path, Long> failures = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+    private boolean webpSupported;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.webpSupported = ImageIO.getImageWritersByFormatName(WEBP).hasNext();
+        sizes = Arrays.stream(sizes).filter(size -> size > 0).sorted().distinct().toArray();
+        log.info("缩略图尺寸: {}, WebP: {}", Arrays.toString(sizes), webpSupported ? "支持" : "不支持");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 上传后在后台生成所有尺寸的缩略图，fileUrl 为 /uploads/ 开头的原图URL
+     */
+    public void scheduleAll(String fileUrl) {
+        String relativePath = fileUrl.startsWith("/uploads/") ? fileUrl.substring("/uploads/".length()) : fileUrl;
+        for (int size : sizes) {
+            generate(relativePath, size, false);
+            if (webpSupported) {
+                generate(relativePath, size, true);
+            }
+        }
+    }
+
+    /**
+     * 是否为允许的缩略图尺寸
+     */
+    public boolean isSupportedSize(int size) {
+        return Arrays.binarySearch(sizes, size) >= 0;
+    }
+
+    /**
+     * 获取缩略图文件，尚未生成时发起生成并最多等待 wait-timeout；
+     * 无法生成（非图片、过大、队列已满）或等待超时返回 null，由调用方返回原图
+     */
+    public Path getVariant(Path original, int size, boolean acceptWebp) {
+        Path variant = variantPath(original, size, acceptWebp && webpSupported);
+        if (Files.isRegularFile(variant)) {
+            return variant;
+        }
+        CompletableFuture<Path> future = generate(original, variant, size);
+        try {
+            return future.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 删除原图的全部缩略图
+     */
+    public void deleteVariants(String relativePath) {
+        Path original = root().resolve(relativePath).normalize();
+        for (int size : sizes) {
+            for (boolean webp : new boolean[]{false, true}) {
+                try {
+                    Files.deleteIfExists(variantPath(original, size, webp));
+                } catch (IOException e) {
+                    log.warn("删除缩略图失败: {}", relativePath, e);
+                }
+            }
+        }
+    }
+
+    private void generate(String relativePath, int size, boolean webp) {
+        Path original = root().resolve(relativePath).normalize();
+        generate(original, variantPath(original, size, webp), size);
+    }
+
+    /**
+     * 同一变体只提交一次生成任务，并发请求共用同一个 future
+     */
+    private CompletableFuture<Path> generate(Path original, Path variant, int size) {
+        if (recentlyFailed(variant)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(variant, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    Path rendered = render(original, variant, size);
+                    if (rendered == null) {
+                        recordFailure(variant);
+                    }
+                    created.complete(rendered);
+                } catch (Exception e) {
+                    log.warn("生成缩略图失败: {}", original, e);
+                    recordFailure(variant);
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(variant, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(variant, created);
+            created.completeExceptionally(e);
+            log.debug("缩略图生成队列已满: {}", original);
+        }
+        return created;
+    }
+
+    private boolean recentlyFailed(Path variant) {
+        Long failedAt = failures.get(variant);
+        if (failedAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - failedAt < failureTtl) {
+            return true;
+        }
+        failures.remove(variant, failedAt);
+        return false;
+    }
+
+    /**
+     * 记录生成失败（非图片、像素过多、解码或编码出错）；队列已满不记录，之后访问时再生成。
+     * 记录数达到上限时先清理过期项，仍然已满则不再记录
+     */
+    private void recordFailure(Path variant) {
+        if (failures.size() >= failureMaxSize) {
+            long deadline = System.currentTimeMillis() - failureTtl;
+            failures.values().removeIf(failedAt -> failedAt < deadline);
+            if (failures.size() >= failureMaxSize) {
+                return;
+            }
+        }
+        failures.put(variant, System.currentTimeMillis());
+    }
+
+    /**
+     * 按最长边缩放到 size（不放大），写入临时文件后原子替换；不是可识别的图片时返回 null
+     */
+    private Path render(Path original, Path variant, int size) throws IOException {
+        if (Files.isRegularFile(variant)) {
+            return variant;
+        }
+        BufferedImage source = read(original);
+        if (source == null) {
+            return null;
+        }
+
+        String format = formatOf(variant);
+        boolean alpha = !"jpg".equals(format);
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            if (!alpha) {
+                // JPEG 不支持透明，透明区域填白色
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Files.createDirectories(variant.getParent());
+        Path tempFile = Files.createTempFile(root().resolve(TEMP_DIR), "thumb-", "." + format);
+        try {
+            if (!ImageIO.write(target, format, tempFile.toFile())) {
+                return null;
+            }
+            Files.move(tempFile, variant, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return variant;
+    }
+
+    /**
+     * 先读取尺寸，像素数超过上限的图片不解码，避免解压炸弹占满内存
+     */
+    private BufferedImage read(Path original) throws IOException {
+        if (!Files.isRegularFile(original)) {
+            return null;
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    log.warn("图片像素过多，不生成缩略图: {}", original);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 变体路径：variants/{尺寸}/{原图相对路径}.{格式}，PNG/GIF 保留透明用 PNG，其余用 JPEG
+     */
+    private Path variantPath(Path original, int size, boolean webp) {
+        Path root = root();
+        String name = original.getFileName().toString();
+        String format;
+        if (webp) {
+            format = WEBP;
+        } else {
+            String lower = name.toLowerCase(Locale.ROOT);
+            format = lower.endsWith(".png") || lower.endsWith(".gif") ? "png" : "jpg";
+        }
+        Path relative = root.relativize(original);
+        return root.resolve(VARIANT_DIR).resolve(String.valueOf(size)).resolve(relative)
+                .resolveSibling(name + "." + format);
+    }
+
+    private static String formatOf(Path variant) {
+        String name = variant.getFileName().toString();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private Path root() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 图片、头像目录（含其中按内容存储的文件）及旧版 blobs 目录下、扩展名为图片的文件可以生成缩略图
+     */
+    public boolean isVariantSource(Path original) {
+        Path root = root();
+        if (!original.startsWith(root)) {
+            return false;
+        }
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || !SOURCE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        return SOURCE_DIRS.stream().anyMatch(dir -> original.startsWith(root.resolve(dir)));
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.student.service;
+
+import com.example.student.util.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 关键字搜索索引
+ * 在内存中为学生、教师、课程的姓名/名称和编号建立单字和双字 n-gram 倒排索引，
+ * 中文按字切分，代替前后模糊的 LIKE 全表扫描；由各服务的写操作在事务提交后同步
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeywordSearchIndex {
+
+    /**
+     * 索引的数据类型及其加载语句，字段顺序即索引字段
+     */
+    public enum Type {
+        STUDENT("SELECT id, name, student_no FROM edu_student WHERE is_deleted = false"),
+        TEACHER("SELECT id, name, teacher_no FROM edu_teacher WHERE is_deleted = false"),
+        COURSE("SELECT id, course_name, course_code FROM edu_course WHERE is_deleted = false");
+
+        private final String loadSql;
+
+        Type(String loadSql) {
+            this.loadSql = loadSql;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${search-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search-index.max-in-size:1000}")
+    private int maxInSize;
+
+    @Value("${search-index.max-results:200}")
+    private int maxResults;
+
+    // 尚未加载完成的类型不在表中，此时调用方退回 LIKE 查询
+    private final Map<Type, Index> indexes = new ConcurrentHashMap<>();
+
+    // 正在重建的类型 -> 重建期间提交的增删操作，新索引加载完成后重放
+    private final Map<Type, List<Consumer<Index>>> rebuildBuffers = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        for (Type type : Type.values()) {
+            rebuild(type);
+        }
+    }
+
+    /**
+     * 从数据库重建指定类型的索引，构建完成后整体替换；
+     * 加载期间提交的增删操作先记下，替换前在新索引上重放，避免被加载时的旧数据覆盖或丢失
+     */
+    public void rebuild(Type type) {
+        if (!enabled) {
+            return;
+        }
+        List<Consumer<Index>> buffer = new ArrayList<>();
+        if (rebuildBuffers.putIfAbsent(type, buffer) != null) {
+            log.info("关键字索引正在重建, 跳过: {}", type);
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Index index = new Index();
+            jdbcTemplate.query(type.loadSql, rs -> {
+                index.put(rs.getLong(1), new String[]{rs.getString(2), rs.getString(3)});
+            });
+            synchronized (buffer) {
+                buffer.forEach(operation -> operation.accept(index));
+                indexes.put(type, index);
+                rebuildBuffers.remove(type, buffer);
+            }
+            log.info("关键字索引已加载: {} {}条, 重放{}条变更, 耗时{}ms", type, index.documents.size(),
+                    buffer.size(), System.currentTimeMillis() - start);
+        } finally {
+            rebuildBuffers.remove(type, buffer);
+        }
+    }
+
+    /**
+     * 新增或更新一条记录的索引，在事务提交后执行
+     */
+    public void put(Type type, Long id, String... fields) {
+        TransactionCallbacks.afterCommit(() -> apply(type, index -> index.put(id, fields)));
+    }
+
+    /**
+     * 移除一条记录的索引，在事务提交后执行
+     */
+    public void remove(Type type, Long id) {
+        TransactionCallbacks.afterCommit(() -> apply(type, index -> index.remove(id)));
+    }
+
+    /**
+     * 应用到当前索引；正在重建时同时记入重放列表。
+     * 先记录再读当前索引，重建恰好完成时操作也会落到新索引上，增删操作重复执行结果不变
+     */
+    private void apply(Type type, Consumer<Index> operation) {
+        List<Consumer<Index>> buffer = rebuildBuffers.get(type);
+        if (buffer != null) {
+            synchronized (buffer) {
+                buffer.add(operation);
+            }
+        }
+        Index index = indexes.get(type);
+        if (index != null) {
+            operation.accept(index);
+        }
+    }
+
+    /**
+     * 搜索包含关键字的记录ID，按ID倒序，最多返回 max-results 条；索引未就绪时返回 null
+     */
+    public List<Long> search(Type type, String keyword) {
+        List<Long> ids = searchAll(type, keyword);
+        return ids != null && ids.size() > maxResults ? new ArrayList<>(ids.subList(0, maxResults)) : ids;
+    }
+
+    /**
+     * 供分页筛选使用的搜索，命中过多时返回 null，由调用方退回 LIKE 查询以免 IN 列表过长
+     */
+    public List<Long> searchForFilter(Type type, String keyword) {
+        List<Long> ids = searchAll(type, keyword);
+        return ids != null && ids.size() <= maxInSize ? ids : null;
+    }
+
+    /**
+     * 搜索接口最多返回的记录数，退回 LIKE 查询时使用同一上限
+     */
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * 按搜索结果的ID顺序排列实体，findAllById 不保证顺序
+     */
+    public static <T> List<T> sortByIds(List<Long> ids, List<T> rows, Function<T, Long> idGetter) {
+        Map<Long, T> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(idGetter.apply(row), row));
+        List<T> sorted = new ArrayList<>(rows.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                sorted.add(row);
+            }
+        }
+        return sorted;
+    }
+
+    private List<Long> searchAll(Type type, String keyword) {
+        Index index = indexes.get(type);
+        if (index == null || keyword == null || keyword.isBlank()) {
+            return null;
+        }
+        List<Long> ids = new ArrayList<>(index.search(keyword.toLowerCase(Locale.ROOT)));
+        ids.sort(Comparator.reverseOrder());
+        return ids;
+    }
+
+    /**
+     * 单个类型的倒排索引，写操作串行，读操作无锁
+     */
+    private static final class Index {
+
+        // n-gram -> 记录ID
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+        // 记录ID -> 已转小写的索引字段，用于更新时移除旧词条及搜索结果的最终校验
+        private final Map<Long, String[]> documents = new ConcurrentHashMap<>();
+
+        private synchronized void put(Long id, String[] fields) {
+            String[] normalized = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                normalized[i] = fields[i] == null ? "" : fields[i].toLowerCase(Locale.ROOT);
+            }
+            String[] previous = documents.put(id, normalized);
+            if (previous != null) {
+                unlink(id, previous);
+            }
+            for (String gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        private synchronized void remove(Long id) {
+            String[] previous = documents.remove(id);
+            if (previous != null) {
+                unlink(id, previous);
+            }
+        }
+
+        private void unlink(Long id, String[] fields) {
+            for (String gram : grams(fields)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 单字查单字索引，多字取各双字索引的交集，再校验原文确实包含关键字
+         */
+        private Set<Long> search(String keyword) {
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String gram : queryGrams(keyword)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    return Set.of();
+                }
+                lists.add(ids);
+            }
+            if (lists.isEmpty()) {
+                return Set.of();
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            Set<Long> result = new HashSet<>();
+            for (Long id : lists.get(0)) {
+                String[] fields = documents.get(id);
+                if (fields != null && contains(fields, keyword)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+
+        private static boolean contains(String[] fields, String keyword) {
+            for (String field : fields) {
+                if (field.contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Set<String> grams(String[] fields) {
+            Set<String> grams = new HashSet<>();
+            for (String field : fields) {
+                for (int i = 0; i < field.length(); i++) {
+                    grams.add(field.substring(i, i + 1));
+                    if (i + 1 < field.length()) {
+                        grams.add(field.substring(i, i + 2));
+                    }
+                }
+            }
+            return grams;
+        }
+
+        private static Set<String> queryGrams(String keyword) {
+            if (keyword.length() == 1) {
+                return Set.of(keyword);
+            }
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + 1 < keyword.length(); i++) {
+                grams.add(keyword.substring(i, i + 2));
+            }
+            return grams;
+        }
+    }
+}
@@ -3,19 +3,32 @@ package com.example.student.service;
 import com.example.student.dto.request.MenuRequest;
 import com.example.student.dto.response.MenuResponse;
 import com.example.student.entity.Menu;
-import com.example.student.entity.User;
 import com.example.student.exception.BusinessException;
 import com.example.student.repository.MenuRepository;
-import com.example.student.repository.UserRepository;
-import com.example.student.security.CustomUserDetails;
+import com.example.student.security.PermissionRegistry;
+import com.example.student.util.TransactionCallbacks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -26,31 +39,83 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MenuService {
 
+    private static final String ROLE_MENU_SQL = "SELECT rm.menu_id FROM sys_role_menu rm "
+            + "JOIN sys_role r ON r.id = rm.role_id WHERE r.role_code = ? AND r.is_deleted = false";
+
+    private static final String ADMIN_ROLE = "ADMIN";
+    private static final String ROLE_PREFIX = "ROLE_";
+
     private final MenuRepository menuRepository;
-    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PermissionRegistry permissionRegistry;
+
+    // 角色编码 -> 已构建的菜单树，菜单或角色菜单变更提交后整体清空
+    private final Map<String, MenuTree> menuTrees = new ConcurrentHashMap<>();
+
+    // 每次失效都会递增，用于丢弃失效前就已开始构建的旧菜单树
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 按角色缓存的菜单树，etag 由树的内容计算，内容不变时重启后也保持不变
+     */
+    public record MenuTree(List<MenuResponse> menus, String etag) {
+    }
 
     /**
      * 获取当前用户的菜单树
      */
     public List<MenuResponse> getCurrentUserMenus() {
-        CustomUserDetails userDetails = (CustomUserDetails) SecurityContextHolder.getContext()
-                .getAuthentication().getPrincipal();
-        
-        User user = userRepository.findById(userDetails.getUserId())
-                .orElseThrow(() -> BusinessException.notFound("用户不存在"));
-        
-        List<Menu> menus;
-        if (user.getRole() != null && "ADMIN".equals(user.getRole().getRoleCode())) {
-            // 管理员拥有所有菜单
-            menus = menuRepository.findAllVisibleMenus();
-        } else if (user.getRole() != null) {
-            // 普通用户根据角色获取菜单
-            menus = menuRepository.findMenusByRoleId(user.getRole().getId());
+        return getCurrentUserMenuTree().menus();
+    }
+
+    /**
+     * 获取当前用户角色的菜单树及其 ETag
+     */
+    public MenuTree getCurrentUserMenuTree() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String roleCode = null;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (authority.getAuthority().startsWith(ROLE_PREFIX)) {
+                roleCode = authority.getAuthority().substring(ROLE_PREFIX.length());
+                break;
+            }
+        }
+        return roleCode != null ? getMenuTree(roleCode) : buildTree(List.of());
+    }
+
+    /**
+     * 获取角色的菜单树，未缓存时构建
+     */
+    public MenuTree getMenuTree(String roleCode) {
+        MenuTree cached = menuTrees.get(roleCode);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration = generation.get();
+        List<Menu> menus = menuRepository.findByStatusOrderBySortOrderAsc(1);
+        if (ADMIN_ROLE.equals(roleCode)) {
+            // 管理员拥有所有可见菜单
+            menus = menus.stream().filter(m -> Boolean.TRUE.equals(m.getVisible())).toList();
         } else {
-            menus = new ArrayList<>();
+            Set<Long> menuIds = new HashSet<>(jdbcTemplate.queryForList(ROLE_MENU_SQL, Long.class, roleCode));
+            menus = menus.stream().filter(m -> menuIds.contains(m.getId())).toList();
         }
-        
-        return buildMenuTree(menus, 0L);
+        MenuTree tree = buildTree(menus);
+        if (generation.get() == loadGeneration) {
+            menuTrees.put(roleCode, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * 使所有角色的菜单树失效，在事务提交后执行
+     */
+    public void evictMenuTrees() {
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            menuTrees.clear();
+        });
     }
 
     /**
@@ -58,7 +123,7 @@ public class MenuService {
      */
     public List<MenuResponse> findAllTree() {
         List<Menu> menus = menuRepository.findByStatusOrderBySortOrderAsc(1);
-        return buildMenuTree(menus, 0L);
+        return buildMenuTree(menus);
     }
 
     /**
@@ -87,6 +152,8 @@ public class MenuService {
         Menu menu = new Menu();
         copyProperties(request, menu);
         menu = menuRepository.save(menu);
+        evictMenuTrees();
+        permissionRegistry.refresh();
         log.info("创建菜单成功: {}", menu.getMenuName());
         return toResponse(menu);
     }
@@ -100,6 +167,8 @@ public class MenuService {
                 .orElseThrow(() -> BusinessException.notFound("菜单不存在"));
         copyProperties(request, menu);
         menu = menuRepository.save(menu);
+        evictMenuTrees();
+        permissionRegistry.refresh();
         log.info("更新菜单成功: {}", menu.getMenuName());
         return toResponse(menu);
     }
@@ -119,21 +188,70 @@ public class MenuService {
         }
         
         menuRepository.delete(menu);
+        evictMenuTrees();
+        permissionRegistry.refresh();
         log.info("删除菜单成功: {}", menu.getMenuName());
     }
 
     /**
-     * 构建菜单树
+     * 构建菜单树，先按父ID分组再自顶向下挂接，一次遍历完成；menus 须已按排序号排好
      */
-    private List<MenuResponse> buildMenuTree(List<Menu> menus, Long parentId) {
-        return menus.stream()
-                .filter(m -> parentId.equals(m.getParentId()))
-                .map(m -> {
-                    MenuResponse response = toResponse(m);
-                    response.setChildren(buildMenuTree(menus, m.getId()));
-                    return response;
-                })
-                .collect(Collectors.toList());
+    private List<MenuResponse> buildMenuTree(List<Menu> menus) {
+        Map<Long, List<Menu>> childrenByParent = new HashMap<>();
+        for (Menu menu : menus) {
+            childrenByParent.computeIfAbsent(menu.getParentId(), key -> new ArrayList<>()).add(menu);
+        }
+        return attachChildren(childrenByParent, 0L, new HashSet<>());
+    }
+
+    private List<MenuResponse> attachChildren(Map<Long, List<Menu>> childrenByParent, Long parentId,
+                                              Set<Long> visited) {
+        List<Menu> children = childrenByParent.get(parentId);
+        if (children == null) {
+            return List.of();
+        }
+        List<MenuResponse> responses = new ArrayList<>(children.size());
+        for (Menu menu : children) {
+            // 父ID成环的数据不再向下展开
+            if (!visited.add(menu.getId())) {
+                continue;
+            }
+            MenuResponse response = toResponse(menu);
+            response.setChildren(attachChildren(childrenByParent, menu.getId(), visited));
+            responses.add(response);
+        }
+        return List.copyOf(responses);
+    }
+
+    /**
+     * 构建缓存用的菜单树，ETag 为各节点内容按树序计算的 SHA-256 摘要
+     */
+    private MenuTree buildTree(List<Menu> menus) {
+        List<MenuResponse> tree = buildMenuTree(menus);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digestTree(digest, tree);
+        String etag = "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        return new MenuTree(tree, etag);
+    }
+
+    private void digestTree(MessageDigest digest, List<MenuResponse> menus) {
+        for (MenuResponse menu : menus) {
+            String node = String.join("\0", Objects.toString(menu.getId()), Objects.toString(menu.getParentId()),
+                    Objects.toString(menu.getMenuName()), Objects.toString(menu.getPath()),
+                    Objects.toString(menu.getComponent()), Objects.toString(menu.getIcon()),
+                    Objects.toString(menu.getSortOrder()), Objects.toString(menu.getMenuType()),
+                    Objects.toString(menu.getPermission()), Objects.toString(menu.getVisible()),
+                    Objects.toString(menu.getStatus()), Objects.toString(menu.getCreatedAt()));
+            digest.update(node.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '[');
+            digestTree(digest, menu.getChildren());
+            digest.update((byte) ']');
+        }
     }
 
     /**
@@ -0,0 +1,194 @@
+package com.example.student.service;
+
+import com.example.student.util.PageVO;
+import com.example.student.util.TransactionCallbacks;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Table;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 分页查询执行器
+ * 数据查询与总数查询分离：总数按实体类型和筛选条件缓存一段时间，写操作提交后失效，
+ * 翻页时不再每次对同一条件执行 COUNT(*)；无筛选条件时还可使用表统计信息估算总数
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PagedQueryExecutor {
+
+    private static final String ESTIMATE_SQL = "SELECT TABLE_ROWS FROM information_schema.TABLES "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${page-count.ttl:30000}")
+    private long ttl;
+
+    @Value("${page-count.max-size:1000}")
+    private int maxSize;
+
+    // (实体类型, 筛选条件, 是否估算) -> 总数
+    private final Map<CountKey, CountEntry> counts = new ConcurrentHashMap<>();
+
+    // 每次失效都会递增，用于丢弃失效前就已开始计算的旧总数
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 分页查询，filters 为构造 spec 所用的筛选参数，作为总数缓存的键；
+     * estimate 为 true 且没有筛选条件时返回估算总数
+     */
+    public <T, R> PageVO<R> findPage(Class<T> type, Specification<T> spec, Pageable pageable, List<?> filters,
+                                     boolean estimate, Function<T, R> mapper, String... fetchPaths) {
+        List<T> content = findContent(type, spec, pageable, fetchPaths);
+        List<Object> normalized = normalize(filters);
+
+        long total;
+        boolean estimated = false;
+        if (!content.isEmpty() && content.size() < pageable.getPageSize()
+                || pageable.getOffset() == 0 && content.isEmpty()) {
+            // 最后一页可直接推算总数
+            total = pageable.getOffset() + content.size();
+        } else if (estimate && normalized.stream().allMatch(Objects::isNull)) {
+            Long rows = cached(new CountKey(type, normalized, true), () -> estimateRows(type));
+            estimated = rows != null;
+            total = estimated ? Math.max(rows, pageable.getOffset() + content.size())
+                    : count(type, spec, normalized);
+        } else {
+            total = count(type, spec, normalized);
+        }
+
+        List<R> records = content.stream().map(mapper).toList();
+        PageVO<R> page = PageVO.fromPage(new PageImpl<>(content, pageable, total), records);
+        page.setEstimated(estimated);
+        return page;
+    }
+
+    /**
+     * 使指定实体类型的总数缓存失效，在事务提交后执行
+     */
+    public void invalidate(Class<?>... types) {
+        List<Class<?>> evicted = Arrays.asList(types);
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            counts.keySet().removeIf(key -> evicted.contains(key.type()));
+        });
+    }
+
+    private <T> List<T> findContent(Class<T> type, Specification<T> spec, Pageable pageable, String... fetchPaths) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize());
+        if (fetchPaths.length > 0) {
+            EntityGraph<T> graph = entityManager.createEntityGraph(type);
+            graph.addAttributeNodes(fetchPaths);
+            typedQuery.setHint("jakarta.persistence.fetchgraph", graph);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private <T> long count(Class<T> type, Specification<T> spec, List<Object> filters) {
+        return cached(new CountKey(type, filters, false), () -> {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = cb.createQuery(Long.class);
+            Root<T> root = query.from(type);
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+            query.select(cb.count(root));
+            return entityManager.createQuery(query).getSingleResult();
+        });
+    }
+
+    /**
+     * 从表统计信息读取行数，包含已逻辑删除的记录，仅作估算
+     */
+    private Long estimateRows(Class<?> type) {
+        Table table = type.getAnnotation(Table.class);
+        if (table == null) {
+            return null;
+        }
+        try {
+            return jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class, table.name());
+        } catch (DataAccessException e) {
+            log.warn("读取表统计信息失败: {}", table.name(), e);
+            return null;
+        }
+    }
+
+    private Long cached(CountKey key, Supplier<Long> loader) {
+        long now = System.currentTimeMillis();
+        CountEntry entry = counts.get(key);
+        if (entry != null && entry.expireAt() > now) {
+            return entry.value();
+        }
+
+        long loadGeneration = generation.get();
+        Long value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        if (counts.size() >= maxSize) {
+            counts.values().removeIf(e -> e.expireAt() <= now);
+            if (counts.size() >= maxSize) {
+                counts.clear();
+            }
+        }
+        if (generation.get() == loadGeneration) {
+            counts.put(key, new CountEntry(value, now + ttl));
+        }
+        return value;
+    }
+
+    /**
+     * 空白字符串与 null 对筛选结果相同，统一为 null
+     */
+    private static List<Object> normalize(List<?> filters) {
+        List<Object> normalized = new ArrayList<>(filters.size());
+        for (Object filter : filters) {
+            normalized.add(filter instanceof String text && text.isBlank() ? null : filter);
+        }
+        return normalized;
+    }
+
+    private record CountKey(Class<?> type, List<Object> filters, boolean estimated) {
+    }
+
+    private record CountEntry(long value, long expireAt) {
+    }
+}
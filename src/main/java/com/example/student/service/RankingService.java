@@ -0,0 +1,509 @@
+package com.example.student.service;
+
+import com.example.student.dto.response.StudentRanking;
+import com.example.student.entity.Clazz;
+import com.example.student.entity.Score;
+import com.example.student.entity.Student;
+import com.example.student.exception.BusinessException;
+import com.example.student.repository.StudentRepository;
+import com.example.student.util.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 学生绩点排名服务
+ * 按已确认成绩在内存中维护每个学生的学分加权绩点和平均总成绩，并按班级、专业、年级分组排名；
+ * 每个分组用按绩点有序的集合取前 N 名，用按绩点分桶的树状数组求名次，确认成绩时增量更新；
+ * 每条已计入的成绩记下计入时的学分和绩点，撤销时按原值扣除，课程学分修改后由定时重建按新学分计算
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RankingService {
+
+    private static final String LOAD_SQL = "SELECT s.id, s.student_id, c.credit, s.gpa, s.total_score, "
+            + "st.class_id, cl.major, cl.grade FROM edu_score s "
+            + "JOIN edu_course c ON c.id = s.course_id "
+            + "JOIN edu_student st ON st.id = s.student_id AND st.is_deleted = false "
+            + "LEFT JOIN edu_class cl ON cl.id = st.class_id AND cl.is_deleted = false "
+            + "WHERE s.status = 2 AND s.is_deleted = false AND s.total_score IS NOT NULL";
+
+    // 绩点按 0.01 分桶，满绩点 4.0
+    private static final int BUCKETS = 401;
+
+    private static final int MAX_LIMIT = 100;
+
+    /**
+     * 排名范围
+     */
+    public enum Level {
+        CLASS, MAJOR, GRADE;
+
+        public static Level of(String value) {
+            try {
+                return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw BusinessException.badRequest("不支持的排名范围: " + value);
+            }
+        }
+    }
+
+    /**
+     * 学生所在的班级、专业、年级
+     */
+    public record Placement(Long classId, String major, String grade) {
+
+        private static final Placement NONE = new Placement(null, null, null);
+
+        public static Placement of(Clazz clazz) {
+            return clazz == null ? NONE : new Placement(clazz.getId(), clazz.getMajor(), clazz.getGrade());
+        }
+
+        private String key(Level level) {
+            return switch (level) {
+                case CLASS -> classId != null ? classId.toString() : null;
+                case MAJOR -> major;
+                case GRADE -> grade;
+            };
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StudentRepository studentRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state = new State();
+
+    // 每次增量更新都会递增，重建期间有变更时放弃本次重建结果
+    private long version;
+
+    /**
+     * 从数据库重建全部排名
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ranking.rebuild-interval:600000}",
+            initialDelayString = "${ranking.rebuild-interval:600000}")
+    public void rebuild() {
+        long startVersion;
+        lock.readLock().lock();
+        try {
+            startVersion = version;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        Map<Long, Aggregate> aggregates = new HashMap<>();
+        State loaded = new State();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            long classId = rs.getLong(6);
+            Placement placement = rs.wasNull() ? Placement.NONE
+                    : new Placement(classId, rs.getString(7), rs.getString(8));
+            ScoreFacts facts = new ScoreFacts(rs.getLong(1), rs.getLong(2), placement,
+                    rs.getBigDecimal(3), rs.getBigDecimal(4), rs.getBigDecimal(5));
+            loaded.scores.put(facts.scoreId(), facts);
+            aggregates.computeIfAbsent(facts.studentId(), id -> new Aggregate(id, placement)).add(facts, 1);
+        });
+        aggregates.values().forEach(loaded::link);
+
+        lock.writeLock().lock();
+        try {
+            if (version != startVersion) {
+                log.debug("排名重建期间有成绩变更，等待下次重建");
+                return;
+            }
+            state = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("学生排名已加载: {}人, 耗时{}ms", aggregates.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 成绩确认，在事务提交后计入排名
+     */
+    public void scoreConfirmed(Score score) {
+        ScoreFacts facts = ScoreFacts.of(score);
+        TransactionCallbacks.afterCommit(() -> confirm(facts));
+    }
+
+    /**
+     * 已确认的成绩被重新录入而回到未确认状态，在事务提交后按计入时的值从排名中扣除
+     */
+    public void scoreRevoked(Score score) {
+        Long scoreId = score.getId();
+        TransactionCallbacks.afterCommit(() -> update(() -> {
+            ScoreFacts counted = state.scores.remove(scoreId);
+            Aggregate aggregate = counted != null ? state.students.get(counted.studentId()) : null;
+            if (aggregate == null) {
+                return;
+            }
+            state.unlink(aggregate);
+            aggregate.add(counted, -1);
+            if (aggregate.count > 0) {
+                state.link(aggregate);
+            } else {
+                state.students.remove(aggregate.studentId);
+            }
+        }));
+    }
+
+    /**
+     * 学生调班或删除（placement 为 null），在事务提交后调整所在分组
+     */
+    public void studentChanged(Long studentId, Placement placement) {
+        TransactionCallbacks.afterCommit(() -> update(() -> {
+            Aggregate aggregate = state.students.get(studentId);
+            if (aggregate == null) {
+                return;
+            }
+            state.unlink(aggregate);
+            if (placement != null) {
+                aggregate.placement = placement;
+                state.link(aggregate);
+            } else {
+                state.students.remove(studentId);
+                aggregate.scoreIds.forEach(state.scores::remove);
+            }
+        }));
+    }
+
+    /**
+     * 班级专业或年级变更、班级删除（placement 为 null），在事务提交后调整该班学生所在分组
+     */
+    public void classChanged(Long classId, Placement placement) {
+        Placement target = placement != null ? placement : Placement.NONE;
+        TransactionCallbacks.afterCommit(() -> update(() -> {
+            Group group = state.groups.get(new GroupKey(Level.CLASS, classId.toString()));
+            if (group == null) {
+                return;
+            }
+            List<Aggregate> members = group.members.stream()
+                    .map(member -> state.students.get(member.studentId()))
+                    .toList();
+            for (Aggregate aggregate : members) {
+                state.unlink(aggregate);
+                aggregate.placement = target;
+                state.link(aggregate);
+            }
+        }));
+    }
+
+    /**
+     * 查询学生的绩点及在班级、专业、年级中的名次，没有已确认成绩时名次为空
+     */
+    public StudentRanking getStudentRanking(Long studentId) {
+        Student student = studentRepository.findById(studentId)
+                .orElseThrow(() -> BusinessException.notFound("学生不存在"));
+
+        StudentRanking.StudentRankingBuilder builder = StudentRanking.builder()
+                .studentId(student.getId())
+                .studentNo(student.getStudentNo())
+                .name(student.getName())
+                .className(student.getClazz() != null ? student.getClazz().getClassName() : null);
+        lock.readLock().lock();
+        try {
+            Aggregate aggregate = state.students.get(studentId);
+            if (aggregate == null) {
+                return builder.courseCount(0).build();
+            }
+            aggregate.fill(builder);
+            for (Level level : Level.values()) {
+                Group group = state.group(level, aggregate.placement);
+                if (group == null) {
+                    continue;
+                }
+                int rank = group.rank(aggregate.bucket());
+                int size = group.members.size();
+                switch (level) {
+                    case CLASS -> builder.classRank(rank).classSize(size);
+                    case MAJOR -> builder.majorRank(rank).majorSize(size);
+                    case GRADE -> builder.gradeRank(rank).gradeSize(size);
+                }
+            }
+            return builder.build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询分组内绩点前 N 名，key 为班级ID、专业名称或年级；绩点相同时名次相同
+     */
+    public List<StudentRanking> getTop(Level level, String key, int limit) {
+        if (key == null || key.isBlank()) {
+            throw BusinessException.badRequest("排名分组不能为空");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        List<StudentRanking.StudentRankingBuilder> builders = new ArrayList<>(size);
+        List<Long> studentIds = new ArrayList<>(size);
+        lock.readLock().lock();
+        try {
+            Group group = state.groups.get(new GroupKey(level, key.trim()));
+            if (group == null) {
+                return List.of();
+            }
+            Iterator<Member> iterator = group.members.iterator();
+            while (iterator.hasNext() && builders.size() < size) {
+                Member member = iterator.next();
+                Aggregate aggregate = state.students.get(member.studentId());
+                StudentRanking.StudentRankingBuilder builder = StudentRanking.builder()
+                        .studentId(member.studentId());
+                aggregate.fill(builder);
+                int rank = group.rank(member.bucket());
+                switch (level) {
+                    case CLASS -> builder.classRank(rank).classSize(group.members.size());
+                    case MAJOR -> builder.majorRank(rank).majorSize(group.members.size());
+                    case GRADE -> builder.gradeRank(rank).gradeSize(group.members.size());
+                }
+                builders.add(builder);
+                studentIds.add(member.studentId());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, Student> students = studentRepository.findAllById(studentIds).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        List<StudentRanking> result = new ArrayList<>(builders.size());
+        for (int i = 0; i < builders.size(); i++) {
+            Student student = students.get(studentIds.get(i));
+            if (student != null) {
+                builders.get(i)
+                        .studentNo(student.getStudentNo())
+                        .name(student.getName())
+                        .className(student.getClazz() != null ? student.getClazz().getClassName() : null);
+            }
+            result.add(builders.get(i).build());
+        }
+        return result;
+    }
+
+    private void confirm(ScoreFacts facts) {
+        update(() -> {
+            // 同一成绩只计入一次
+            if (state.scores.putIfAbsent(facts.scoreId(), facts) != null) {
+                return;
+            }
+            Aggregate aggregate = state.students.get(facts.studentId());
+            if (aggregate == null) {
+                aggregate = new Aggregate(facts.studentId(), facts.placement());
+            } else {
+                state.unlink(aggregate);
+            }
+            aggregate.add(facts, 1);
+            state.link(aggregate);
+        });
+    }
+
+    private void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long scaled(BigDecimal value, int scale) {
+        return value == null ? 0 : value.movePointRight(scale).longValue();
+    }
+
+    /**
+     * 一条成绩计入排名时的学分、绩点和总成绩
+     */
+    private record ScoreFacts(Long scoreId, Long studentId, Placement placement, BigDecimal credit,
+                              BigDecimal gpa, BigDecimal totalScore) {
+
+        private static ScoreFacts of(Score score) {
+            Student student = score.getStudent();
+            return new ScoreFacts(score.getId(), student.getId(), Placement.of(student.getClazz()),
+                    score.getCourse().getCredit(), score.getGpa(), score.getTotalScore());
+        }
+    }
+
+    private record GroupKey(Level level, String key) {
+    }
+
+    /**
+     * 分组内的排序项：绩点分桶降序，其次平均分降序，最后按学生ID
+     */
+    private record Member(long studentId, int bucket, long averageScore) {
+
+        private static final Comparator<Member> ORDER = Comparator.comparingInt(Member::bucket).reversed()
+                .thenComparing(Comparator.comparingLong(Member::averageScore).reversed())
+                .thenComparingLong(Member::studentId);
+    }
+
+    /**
+     * 单个学生的成绩累计，学分、绩点、总成绩按定点整数累加，增减不产生误差
+     */
+    private static final class Aggregate {
+
+        private final long studentId;
+        private Placement placement;
+        private long weightedGpa;   // 学分 × 绩点，小数点后 3 位
+        private long credits;       // 小数点后 1 位
+        private long totalScore;    // 小数点后 2 位
+        private int count;
+
+        // 已计入的成绩ID，删除学生时只移除这些成绩的计入记录
+        private final Set<Long> scoreIds = new HashSet<>();
+
+        // 当前在分组中的排序项，未加入分组时为 null
+        private Member member;
+
+        private Aggregate(long studentId, Placement placement) {
+            this.studentId = studentId;
+            this.placement = placement;
+        }
+
+        private void add(ScoreFacts facts, int sign) {
+            long scaledCredit = scaled(facts.credit(), 1);
+            weightedGpa += sign * scaledCredit * scaled(facts.gpa(), 2);
+            credits += sign * scaledCredit;
+            totalScore += sign * scaled(facts.totalScore(), 2);
+            count += sign;
+            if (sign > 0) {
+                scoreIds.add(facts.scoreId());
+            } else {
+                scoreIds.remove(facts.scoreId());
+            }
+        }
+
+        /**
+         * 加权绩点，单位 0.01
+         */
+        private int bucket() {
+            if (credits <= 0) {
+                return 0;
+            }
+            long gpa = Math.round((double) weightedGpa / credits);
+            return (int) Math.max(0, Math.min(gpa, BUCKETS - 1));
+        }
+
+        /**
+         * 平均总成绩，单位 0.01
+         */
+        private long averageScore() {
+            return count > 0 ? Math.round((double) totalScore / count) : 0;
+        }
+
+        private void fill(StudentRanking.StudentRankingBuilder builder) {
+            builder.gpa(BigDecimal.valueOf(bucket(), 2))
+                    .averageScore(BigDecimal.valueOf(averageScore(), 2))
+                    .credits(BigDecimal.valueOf(credits, 1))
+                    .courseCount(count);
+        }
+    }
+
+    /**
+     * 一个排名分组：有序集合用于取前 N 名，树状数组记录各绩点分桶的人数用于求名次
+     */
+    private static final class Group {
+
+        private final TreeSet<Member> members = new TreeSet<>(Member.ORDER);
+        private final int[] tree = new int[BUCKETS + 1];
+
+        private void add(Member member, int delta) {
+            for (int i = member.bucket() + 1; i <= BUCKETS; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /**
+         * 绩点不超过该分桶的人数
+         */
+        private int countAtMost(int bucket) {
+            int count = 0;
+            for (int i = bucket + 1; i > 0; i -= i & -i) {
+                count += tree[i];
+            }
+            return count;
+        }
+
+        /**
+         * 名次 = 绩点高于该分桶的人数 + 1
+         */
+        private int rank(int bucket) {
+            return members.size() - countAtMost(bucket) + 1;
+        }
+    }
+
+    /**
+     * 全部学生的累计和分组，读写由外层读写锁保护
+     */
+    private static final class State {
+
+        private final Map<Long, Aggregate> students = new HashMap<>();
+        private final Map<GroupKey, Group> groups = new HashMap<>();
+
+        // 成绩ID -> 计入时的值，撤销时按此扣除
+        private final Map<Long, ScoreFacts> scores = new HashMap<>();
+
+        private Group group(Level level, Placement placement) {
+            String key = placement.key(level);
+            return key != null ? groups.get(new GroupKey(level, key)) : null;
+        }
+
+        private void link(Aggregate aggregate) {
+            students.put(aggregate.studentId, aggregate);
+            Member member = new Member(aggregate.studentId, aggregate.bucket(), aggregate.averageScore());
+            aggregate.member = member;
+            for (Level level : Level.values()) {
+                String key = aggregate.placement.key(level);
+                if (key == null) {
+                    continue;
+                }
+                Group group = groups.computeIfAbsent(new GroupKey(level, key), k -> new Group());
+                group.members.add(member);
+                group.add(member, 1);
+            }
+        }
+
+        private void unlink(Aggregate aggregate) {
+            Member member = aggregate.member;
+            if (member == null) {
+                return;
+            }
+            for (Level level : Level.values()) {
+                String key = aggregate.placement.key(level);
+                if (key == null) {
+                    continue;
+                }
+                GroupKey groupKey = new GroupKey(level, key);
+                Group group = groups.get(groupKey);
+                if (group != null && group.members.remove(member)) {
+                    group.add(member, -1);
+                    if (group.members.isEmpty()) {
+                        groups.remove(groupKey);
+                    }
+                }
+            }
+            aggregate.member = null;
+        }
+    }
+}
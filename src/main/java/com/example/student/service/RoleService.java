@@ -7,6 +7,9 @@ import com.example.student.entity.Role;
 import com.example.student.exception.BusinessException;
 import com.example.student.repository.MenuRepository;
 import com.example.student.repository.RoleRepository;
+import com.example.student.security.PermissionRegistry;
+import com.example.student.security.TokenVersionRegistry;
+import com.example.student.security.UserDetailsCache;
 import com.example.student.util.PageVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -32,6 +36,10 @@ public class RoleService {
 
     private final RoleRepository roleRepository;
     private final MenuRepository menuRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final MenuService menuService;
+    private final PermissionRegistry permissionRegistry;
 
     /**
      * 分页查询角色
@@ -40,7 +48,6 @@ public class RoleService {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.ASC, "id"));
         Page<Role> pageResult = roleRepository.findAll(pageable);
         List<RoleResponse> records = pageResult.getContent().stream()
-                .filter(r -> !r.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
         return PageVO.fromPage(pageResult, records);
@@ -51,7 +58,6 @@ public class RoleService {
      */
     public List<RoleResponse> findAll() {
         return roleRepository.findAll().stream()
-                .filter(r -> !r.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -87,6 +93,8 @@ public class RoleService {
         }
 
         role = roleRepository.save(role);
+        menuService.evictMenuTrees();
+        permissionRegistry.refresh();
         log.info("创建角色成功: {}", role.getRoleName());
         return toResponse(role);
     }
@@ -105,6 +113,8 @@ public class RoleService {
             throw BusinessException.badRequest("角色编码已存在");
         }
 
+        String oldRoleCode = role.getRoleCode();
+        Integer oldStatus = role.getStatus();
         role.setRoleName(request.getRoleName());
         role.setRoleCode(request.getRoleCode());
         role.setDescription(request.getDescription());
@@ -117,6 +127,14 @@ public class RoleService {
         }
 
         role = roleRepository.save(role);
+        menuService.evictMenuTrees();
+        permissionRegistry.refresh();
+        userDetailsCache.evictByRole(oldRoleCode);
+        userDetailsCache.evictByRole(role.getRoleCode());
+        // 角色编码或状态变化后，令牌中签入的角色声明已过期
+        if (!oldRoleCode.equals(role.getRoleCode()) || !Objects.equals(oldStatus, role.getStatus())) {
+            tokenVersionRegistry.revokeByRole(role.getId());
+        }
         log.info("更新角色成功: {}", role.getRoleName());
         return toResponse(role);
     }
@@ -130,6 +148,10 @@ public class RoleService {
                 .orElseThrow(() -> BusinessException.notFound("角色不存在"));
         role.setIsDeleted(true);
         roleRepository.save(role);
+        menuService.evictMenuTrees();
+        permissionRegistry.refresh();
+        userDetailsCache.evictByRole(role.getRoleCode());
+        tokenVersionRegistry.revokeByRole(role.getId());
         log.info("删除角色成功: {}", role.getRoleName());
     }
 
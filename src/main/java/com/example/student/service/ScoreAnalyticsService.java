@@ -0,0 +1,186 @@
+package com.example.student.service;
+
+import com.example.student.dto.response.ScoreAnalytics;
+import com.example.student.exception.BusinessException;
+import com.example.student.util.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 课程成绩分析服务
+ * 按课程（可选学期）把已确认的总成绩读入排好序的 double[] 快照并缓存，
+ * 成绩变更提交后失效；均值、标准差、及格率和分段在一次遍历中算出，分位数直接按下标插值
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScoreAnalyticsService {
+
+    private static final String LOAD_SQL = "SELECT total_score FROM edu_score "
+            + "WHERE course_id = ? AND status = 2 AND is_deleted = false AND total_score IS NOT NULL";
+
+    private static final double PASS_SCORE = 60;
+    private static final double FULL_SCORE = 100;
+    private static final int MAX_BINS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${score-analytics.cache-size:500}")
+    private int cacheSize;
+
+    // (课程ID, 学期) -> 已排序的总成绩
+    private final Map<SnapshotKey, double[]> snapshots = new ConcurrentHashMap<>();
+
+    // 每次失效都会递增，用于丢弃失效前就已开始加载的旧快照
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 分析课程成绩，bins 为成绩分段数，将 0-100 分等宽划分
+     */
+    public ScoreAnalytics analyze(Long courseId, String semester, int bins) {
+        if (bins < 1 || bins > MAX_BINS) {
+            throw BusinessException.badRequest("成绩分段数应在1到" + MAX_BINS + "之间");
+        }
+        String normalizedSemester = StringUtils.hasText(semester) ? semester.trim() : null;
+        double[] scores = snapshot(new SnapshotKey(courseId, normalizedSemester));
+
+        int n = scores.length;
+        int[] histogram = new int[bins];
+        double binWidth = FULL_SCORE / bins;
+        double mean = 0;
+        double m2 = 0;
+        int passCount = 0;
+        for (int i = 0; i < n; i++) {
+            double score = scores[i];
+            // Welford 算法，避免大数相减损失精度
+            double delta = score - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (score - mean);
+            if (score >= PASS_SCORE) {
+                passCount++;
+            }
+            int bin = (int) (score / binWidth);
+            histogram[Math.max(0, Math.min(bin, bins - 1))]++;
+        }
+
+        List<ScoreAnalytics.Bin> histogramBins = new ArrayList<>(bins);
+        for (int i = 0; i < bins; i++) {
+            histogramBins.add(ScoreAnalytics.Bin.builder()
+                    .from(round(i * binWidth))
+                    .to(round((i + 1) * binWidth))
+                    .count(histogram[i])
+                    .build());
+        }
+
+        return ScoreAnalytics.builder()
+                .courseId(courseId)
+                .semester(normalizedSemester)
+                .count(n)
+                .mean(n > 0 ? round(mean) : null)
+                .stdDev(n > 0 ? round(Math.sqrt(m2 / n)) : null)
+                .min(n > 0 ? scores[0] : null)
+                .max(n > 0 ? scores[n - 1] : null)
+                .median(percentile(scores, 0.5))
+                .p10(percentile(scores, 0.1))
+                .p25(percentile(scores, 0.25))
+                .p75(percentile(scores, 0.75))
+                .p90(percentile(scores, 0.9))
+                .passCount(passCount)
+                .passRate(n > 0 ? round(passCount * 100.0 / n) : null)
+                .histogram(histogramBins)
+                .build();
+    }
+
+    /**
+     * 使指定课程的成绩快照失效，在事务提交后执行
+     */
+    public void invalidate(Collection<Long> courseIds) {
+        List<Long> evicted = List.copyOf(courseIds);
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            snapshots.keySet().removeIf(key -> evicted.contains(key.courseId()));
+        });
+    }
+
+    private double[] snapshot(SnapshotKey key) {
+        double[] cached = snapshots.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration = generation.get();
+        double[] scores = load(key);
+        if (snapshots.size() >= cacheSize) {
+            snapshots.clear();
+        }
+        if (generation.get() == loadGeneration) {
+            snapshots.put(key, scores);
+        }
+        return scores;
+    }
+
+    private double[] load(SnapshotKey key) {
+        String sql = key.semester() != null ? LOAD_SQL + " AND semester = ?" : LOAD_SQL;
+        Object[] args = key.semester() != null
+                ? new Object[]{key.courseId(), key.semester()} : new Object[]{key.courseId()};
+        ScoreBuffer buffer = new ScoreBuffer();
+        jdbcTemplate.query(sql, rs -> {
+            buffer.add(rs.getDouble(1));
+        }, args);
+        double[] scores = buffer.toArray();
+        Arrays.sort(scores);
+        return scores;
+    }
+
+    /**
+     * 线性插值分位数，scores 须已排序
+     */
+    private static Double percentile(double[] scores, double p) {
+        if (scores.length == 0) {
+            return null;
+        }
+        double position = p * (scores.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, scores.length - 1);
+        return round(scores[lower] + (scores[upper] - scores[lower]) * (position - lower));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private record SnapshotKey(Long courseId, String semester) {
+    }
+
+    /**
+     * 可增长的 double 数组，读取时不装箱
+     */
+    private static final class ScoreBuffer {
+
+        private double[] values = new double[256];
+        private int size;
+
+        private void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.student.service;
 
 import com.example.student.dto.request.ScoreRequest;
+import com.example.student.dto.response.BatchScoreResult;
 import com.example.student.dto.response.ScoreResponse;
 import com.example.student.entity.Course;
 import com.example.student.entity.Score;
@@ -9,10 +10,13 @@ import com.example.student.exception.BusinessException;
 import com.example.student.repository.CourseRepository;
 import com.example.student.repository.ScoreRepository;
 import com.example.student.repository.StudentRepository;
+import com.example.student.util.KeysetCursor;
 import com.example.student.util.PageVO;
+import com.example.student.util.TransactionCallbacks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.hibernate.Hibernate;
+import org.hibernate.ObjectNotFoundException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -21,10 +25,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -35,21 +47,46 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ScoreService {
 
+    // 批量录入时每批加载的成绩记录数
+    private static final int BATCH_LOAD_SIZE = 1000;
+
     private final ScoreRepository scoreRepository;
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
+    private final CourseSelectionEngine courseSelectionEngine;
+    private final EntityManager entityManager;
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final ScoreAnalyticsService scoreAnalyticsService;
+    private final RankingService rankingService;
 
     /**
      * 分页查询成绩
      */
     public PageVO<ScoreResponse> findPage(Integer page, Integer size, Long studentId, 
-                                          Long courseId, String semester) {
+                                          Long courseId, String semester, boolean estimate) {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
-        Specification<Score> spec = (root, query, cb) -> {
+        Specification<Score> spec = buildSpec(studentId, courseId, semester);
+        List<Object> filters = Arrays.asList(studentId, courseId, semester);
+        return pagedQueryExecutor.findPage(Score.class, spec, pageable, filters, estimate, this::toResponse,
+                "student", "course");
+    }
+
+    /**
+     * 游标分页查询成绩，withTotal 为 false 时不执行 count 查询
+     */
+    public PageVO<ScoreResponse> findCursorPage(String cursor, Integer size,
+                                                Long studentId, Long courseId, String semester, boolean withTotal) {
+        int pageSize = KeysetCursor.size(size);
+        Specification<Score> spec = buildSpec(studentId, courseId, semester);
+        List<Score> rows = scoreRepository.findBy(spec.and(KeysetCursor.after(cursor)),
+                query -> query.project("student", "course").sortBy(KeysetCursor.SORT).limit(pageSize + 1).all());
+        Long total = withTotal ? scoreRepository.count(spec.and(KeysetCursor.after(null))) : null;
+        return KeysetCursor.toPage(rows, pageSize, this::toResponse, total);
+    }
+
+    private Specification<Score> buildSpec(Long studentId, Long courseId, String semester) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("isDeleted"), false));
-            
             if (studentId != null) {
                 predicates.add(cb.equal(root.get("student").get("id"), studentId));
             }
@@ -61,13 +98,6 @@ public class ScoreService {
             }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-        
-        Page<Score> pageResult = scoreRepository.findAll(spec, pageable);
-        List<ScoreResponse> records = pageResult.getContent().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        
-        return PageVO.fromPage(pageResult, records);
     }
 
     /**
@@ -75,7 +105,6 @@ public class ScoreService {
      */
     public List<ScoreResponse> findByStudentId(Long studentId) {
         return scoreRepository.findByStudentId(studentId).stream()
-                .filter(s -> !s.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -85,7 +114,6 @@ public class ScoreService {
      */
     public List<ScoreResponse> findByCourseId(Long courseId) {
         return scoreRepository.findByCourseId(courseId).stream()
-                .filter(s -> !s.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -101,13 +129,19 @@ public class ScoreService {
 
     /**
      * 学生选课
+     * 名额由选课引擎在内存中原子预占，选课人数异步回写
      */
     @Transactional
     public ScoreResponse selectCourse(Long studentId, Long courseId) {
-        // 检查是否已选
-        if (scoreRepository.existsByStudentIdAndCourseId(studentId, courseId)) {
-            throw BusinessException.badRequest("已选择该课程");
+        switch (courseSelectionEngine.reserve(courseId, studentId)) {
+            case DUPLICATE -> throw BusinessException.badRequest("已选择该课程");
+            case FULL -> throw BusinessException.badRequest("课程已满员");
+            case NOT_FOUND -> throw BusinessException.notFound("课程不存在");
+            default -> {
+            }
         }
+        // 事务回滚时归还名额
+        TransactionCallbacks.afterRollback(() -> courseSelectionEngine.release(courseId, studentId));
 
         Student student = studentRepository.findById(studentId)
                 .orElseThrow(() -> BusinessException.notFound("学生不存在"));
@@ -115,11 +149,6 @@ public class ScoreService {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> BusinessException.notFound("课程不存在"));
 
-        // 检查课程是否已满
-        if (course.getCurrentStudents() >= course.getMaxStudents()) {
-            throw BusinessException.badRequest("课程已满员");
-        }
-
         Score score = Score.builder()
                 .student(student)
                 .course(course)
@@ -129,10 +158,7 @@ public class ScoreService {
 
         score = scoreRepository.save(score);
 
-        // 更新选课人数
-        course.setCurrentStudents(course.getCurrentStudents() + 1);
-        courseRepository.save(course);
-
+        pagedQueryExecutor.invalidate(Score.class);
         log.info("学生选课成功: {} -> {}", student.getName(), course.getCourseName());
         return toResponse(score);
     }
@@ -150,12 +176,10 @@ public class ScoreService {
             throw BusinessException.badRequest("成绩已确认，无法退选");
         }
 
-        Course course = score.getCourse();
-        course.setCurrentStudents(Math.max(0, course.getCurrentStudents() - 1));
-        courseRepository.save(course);
-
         scoreRepository.delete(score);
-        log.info("学生退选成功: {} -> {}", score.getStudent().getName(), course.getCourseName());
+        TransactionCallbacks.afterCommit(() -> courseSelectionEngine.release(courseId, studentId));
+        pagedQueryExecutor.invalidate(Score.class);
+        log.info("学生退选成功: {} -> {}", score.getStudent().getName(), score.getCourse().getCourseName());
     }
 
     /**
@@ -166,16 +190,13 @@ public class ScoreService {
         Score score = scoreRepository.findById(id)
                 .orElseThrow(() -> BusinessException.notFound("成绩记录不存在"));
 
-        score.setUsualScore(request.getUsualScore());
-        score.setMidtermScore(request.getMidtermScore());
-        score.setFinalScore(request.getFinalScore());
-        score.setRemark(request.getRemark());
-
-        // 计算总成绩和绩点
-        score.calculateTotalScore();
-        score.setStatus(1); // 已录入
+        if (score.getStatus() == 2) {
+            rankingService.scoreRevoked(score);
+        }
+        applyScore(score, request);
 
         score = scoreRepository.save(score);
+        scoreAnalyticsService.invalidate(List.of(score.getCourse().getId()));
         log.info("成绩录入成功: {} - {} = {}", score.getStudent().getName(), 
                 score.getCourse().getCourseName(), score.getTotalScore());
         return toResponse(score);
@@ -183,14 +204,65 @@ public class ScoreService {
 
     /**
      * 批量录入成绩
+     * 按批一次性加载成绩记录，在内存中计算总成绩，由 Hibernate 以 JDBC 批量更新写回
      */
     @Transactional
-    public void batchInputScore(List<ScoreRequest> requests) {
-        for (ScoreRequest request : requests) {
-            if (request.getId() != null) {
-                inputScore(request.getId(), request);
+    public BatchScoreResult batchInputScore(List<ScoreRequest> requests) {
+        List<BatchScoreResult.RowResult> rows = new ArrayList<>(requests.size());
+        Set<Long> courseIds = new HashSet<>();
+        int succeeded = 0;
+
+        for (int from = 0; from < requests.size(); from += BATCH_LOAD_SIZE) {
+            List<ScoreRequest> chunk = requests.subList(from, Math.min(from + BATCH_LOAD_SIZE, requests.size()));
+            Map<Long, Score> scores = scoreRepository.findAllById(chunk.stream()
+                            .map(ScoreRequest::getId)
+                            .filter(Objects::nonNull)
+                            .distinct()
+                            .toList()).stream()
+                    .collect(Collectors.toMap(Score::getId, Function.identity()));
+
+            for (int i = 0; i < chunk.size(); i++) {
+                ScoreRequest request = chunk.get(i);
+                Score score = request.getId() != null ? scores.get(request.getId()) : null;
+                if (score == null) {
+                    rows.add(BatchScoreResult.RowResult.builder()
+                            .index(from + i)
+                            .id(request.getId())
+                            .success(false)
+                            .message(request.getId() == null ? "成绩记录ID不能为空" : "成绩记录不存在")
+                            .build());
+                    continue;
+                }
+
+                if (score.getStatus() == 2) {
+                    rankingService.scoreRevoked(score);
+                }
+                applyScore(score, request);
+                courseIds.add(score.getCourse().getId());
+                rows.add(BatchScoreResult.RowResult.builder()
+                        .index(from + i)
+                        .id(score.getId())
+                        .success(true)
+                        .message("录入成功")
+                        .totalScore(score.getTotalScore())
+                        .gpa(score.getGpa())
+                        .build());
+                succeeded++;
             }
+
+            // 每批写回后清理持久化上下文，避免大批量导入时脏检查开销持续增长
+            entityManager.flush();
+            entityManager.clear();
         }
+
+        scoreAnalyticsService.invalidate(courseIds);
+        log.info("批量录入成绩完成: 共{}条, 成功{}条", requests.size(), succeeded);
+        return BatchScoreResult.builder()
+                .total(requests.size())
+                .succeeded(succeeded)
+                .failed(requests.size() - succeeded)
+                .rows(rows)
+                .build();
     }
 
     /**
@@ -205,8 +277,13 @@ public class ScoreService {
             throw BusinessException.badRequest("请先录入成绩");
         }
 
+        boolean confirmed = score.getStatus() == 2;
         score.setStatus(2); // 已确认
         score = scoreRepository.save(score);
+        scoreAnalyticsService.invalidate(List.of(score.getCourse().getId()));
+        if (!confirmed) {
+            rankingService.scoreConfirmed(score);
+        }
         log.info("成绩确认成功: {} - {}", score.getStudent().getName(), score.getCourse().getCourseName());
         return toResponse(score);
     }
@@ -224,11 +301,11 @@ public class ScoreService {
         }
 
         // 更新选课人数
-        Course course = score.getCourse();
-        course.setCurrentStudents(Math.max(0, course.getCurrentStudents() - 1));
-        courseRepository.save(course);
-
+        Long courseId = score.getCourse().getId();
+        Long studentId = score.getStudent().getId();
         scoreRepository.delete(score);
+        TransactionCallbacks.afterCommit(() -> courseSelectionEngine.release(courseId, studentId));
+        pagedQueryExecutor.invalidate(Score.class);
         log.info("成绩删除成功");
     }
 
@@ -253,19 +330,36 @@ public class ScoreService {
         return scoreRepository.calculateCourseAverageScore(courseId);
     }
 
+    /**
+     * 写入各项成绩并计算总成绩和绩点
+     */
+    private void applyScore(Score score, ScoreRequest request) {
+        score.setUsualScore(request.getUsualScore());
+        score.setMidtermScore(request.getMidtermScore());
+        score.setFinalScore(request.getFinalScore());
+        score.setRemark(request.getRemark());
+
+        // 计算总成绩和绩点
+        score.calculateTotalScore();
+        score.setStatus(1); // 已录入
+    }
+
     /**
      * 转换为响应对象
      */
     private ScoreResponse toResponse(Score score) {
+        // 关联ID取自外键，不触发加载；学生或课程被软删除后只返回ID
+        Student student = initialized(score.getStudent());
+        Course course = initialized(score.getCourse());
         return ScoreResponse.builder()
                 .id(score.getId())
                 .studentId(score.getStudent().getId())
-                .studentNo(score.getStudent().getStudentNo())
-                .studentName(score.getStudent().getName())
+                .studentNo(student != null ? student.getStudentNo() : null)
+                .studentName(student != null ? student.getName() : null)
                 .courseId(score.getCourse().getId())
-                .courseCode(score.getCourse().getCourseCode())
-                .courseName(score.getCourse().getCourseName())
-                .credit(score.getCourse().getCredit())
+                .courseCode(course != null ? course.getCourseCode() : null)
+                .courseName(course != null ? course.getCourseName() : null)
+                .credit(course != null ? course.getCredit() : null)
                 .usualScore(score.getUsualScore())
                 .midtermScore(score.getMidtermScore())
                 .finalScore(score.getFinalScore())
@@ -277,4 +371,16 @@ public class ScoreService {
                 .createdAt(score.getCreatedAt())
                 .build();
     }
+
+    /**
+     * 初始化懒加载关联；关联记录已被软删除时，代理初始化查不到数据，返回 null
+     */
+    private static <T> T initialized(T association) {
+        try {
+            Hibernate.initialize(association);
+            return association;
+        } catch (EntityNotFoundException | ObjectNotFoundException e) {
+            return null;
+        }
+    }
 }
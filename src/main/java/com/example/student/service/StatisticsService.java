@@ -17,87 +17,36 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StatisticsService {
 
-    private final StudentRepository studentRepository;
     private final TeacherRepository teacherRepository;
-    private final ClazzRepository clazzRepository;
-    private final CourseRepository courseRepository;
     private final ScoreRepository scoreRepository;
+    private final DashboardAggregates dashboardAggregates;
 
     /**
      * 获取仪表盘统计数据
      */
     public DashboardStats getDashboardStats() {
-        return DashboardStats.builder()
-                .studentCount(studentRepository.countActiveStudents())
-                .teacherCount(teacherRepository.countActiveTeachers())
-                .classCount(clazzRepository.countAllClasses())
-                .courseCount(courseRepository.countAllCourses())
-                .studentsByClass(getStudentsByClass())
-                .studentsByGender(getStudentsByGender())
-                .coursesByType(getCoursesByType())
-                .build();
+        return dashboardAggregates.getDashboardStats();
     }
 
     /**
      * 各班级学生分布
      */
     public List<DashboardStats.ChartData> getStudentsByClass() {
-        List<DashboardStats.ChartData> result = new ArrayList<>();
-        List<Object[]> data = studentRepository.countStudentsByClass();
-        for (Object[] row : data) {
-            String className = row[0] != null ? row[0].toString() : "未分班";
-            Long count = row[1] != null ? ((Number) row[1]).longValue() : 0L;
-            result.add(DashboardStats.ChartData.builder()
-                    .name(className)
-                    .value(count)
-                    .build());
-        }
-        return result;
+        return dashboardAggregates.getDashboardStats().getStudentsByClass();
     }
 
     /**
      * 学生性别分布
      */
     public List<DashboardStats.ChartData> getStudentsByGender() {
-        List<DashboardStats.ChartData> result = new ArrayList<>();
-        List<Object[]> data = studentRepository.countStudentsByGender();
-        for (Object[] row : data) {
-            Integer gender = row[0] != null ? ((Number) row[0]).intValue() : 0;
-            Long count = row[1] != null ? ((Number) row[1]).longValue() : 0L;
-            String genderName = switch (gender) {
-                case 1 -> "男";
-                case 2 -> "女";
-                default -> "未知";
-            };
-            result.add(DashboardStats.ChartData.builder()
-                    .name(genderName)
-                    .value(count)
-                    .build());
-        }
-        return result;
+        return dashboardAggregates.getDashboardStats().getStudentsByGender();
     }
 
     /**
      * 课程类型分布
      */
     public List<DashboardStats.ChartData> getCoursesByType() {
-        List<DashboardStats.ChartData> result = new ArrayList<>();
-        List<Object[]> data = courseRepository.countCoursesByType();
-        for (Object[] row : data) {
-            Integer type = row[0] != null ? ((Number) row[0]).intValue() : 0;
-            Long count = row[1] != null ? ((Number) row[1]).longValue() : 0L;
-            String typeName = switch (type) {
-                case 1 -> "必修课";
-                case 2 -> "选修课";
-                case 3 -> "公选课";
-                default -> "其他";
-            };
-            result.add(DashboardStats.ChartData.builder()
-                    .name(typeName)
-                    .value(count)
-                    .build());
-        }
-        return result;
+        return dashboardAggregates.getDashboardStats().getCoursesByType();
     }
 
     /**
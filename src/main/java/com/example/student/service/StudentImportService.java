@@ -0,0 +1,500 @@
+package com.example.student.service;
+
+import com.example.student.dto.response.StudentImportResponse;
+import com.example.student.entity.Clazz;
+import com.example.student.entity.Role;
+import com.example.student.entity.Student;
+import com.example.student.entity.User;
+import com.example.student.exception.BusinessException;
+import com.example.student.repository.ClazzRepository;
+import com.example.student.repository.RoleRepository;
+import com.example.student.repository.StudentRepository;
+import com.example.student.repository.UserRepository;
+import com.example.student.util.SheetReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 学生批量导入服务
+ * 逐行读取 CSV/XLSX 文件，按批以 JDBC 批量插入学生和登录账号，
+ * 导入在后台执行，通过任务ID查询进度和错误明细
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StudentImportService {
+
+    private static final String RUNNING = "RUNNING";
+    private static final String COMPLETED = "COMPLETED";
+    private static final String FAILED = "FAILED";
+
+    private static final String DEFAULT_PASSWORD = "123456";
+    private static final int ERROR_LIMIT = 1000;
+    private static final long TASK_TTL_HOURS = 24;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-M-d");
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+
+    private static final String INSERT_USER = "INSERT INTO sys_user (username, password, real_name, email, "
+            + "user_type, role_id, status, token_version, is_deleted, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, 3, ?, 1, 0, false, ?, ?)";
+
+    private static final String INSERT_STUDENT = "INSERT INTO edu_student (student_no, name, gender, birth_date, "
+            + "id_card, phone, email, address, native_place, nation, political_status, class_id, enrollment_date, "
+            + "graduation_date, status, remark, user_id, is_deleted, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1, ?, ?, false, ?, ?)";
+
+    private static final String RECOUNT_CLASS = "UPDATE edu_class c SET student_count = "
+            + "(SELECT COUNT(*) FROM edu_student s WHERE s.class_id = c.id AND s.is_deleted = false) WHERE c.id = ?";
+
+    // 表头别名 -> 字段
+    private static final Map<String, String> HEADER_ALIASES = Map.ofEntries(
+            Map.entry("学号", "studentNo"), Map.entry("姓名", "name"), Map.entry("性别", "gender"),
+            Map.entry("出生日期", "birthDate"), Map.entry("身份证号", "idCard"), Map.entry("电话", "phone"),
+            Map.entry("手机号", "phone"), Map.entry("邮箱", "email"), Map.entry("家庭住址", "address"),
+            Map.entry("籍贯", "nativePlace"), Map.entry("民族", "nation"), Map.entry("政治面貌", "politicalStatus"),
+            Map.entry("班级编号", "classCode"), Map.entry("入学日期", "enrollmentDate"),
+            Map.entry("毕业日期", "graduationDate"), Map.entry("备注", "remark"));
+
+    private final StudentRepository studentRepository;
+    private final UserRepository userRepository;
+    private final ClazzRepository clazzRepository;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final KeywordSearchIndex keywordSearchIndex;
+    private final SuggestIndex suggestIndex;
+    private final DashboardAggregates dashboardAggregates;
+
+    @Value("${student-import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${student-import.hash-threads:4}")
+    private int hashThreads;
+
+    private final Map<String, ImportTask> tasks = new ConcurrentHashMap<>();
+
+    private ExecutorService importExecutor;
+    private ExecutorService hashExecutor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 导入任务串行执行，避免多个导入同时争用连接池
+        this.importExecutor = Executors.newSingleThreadExecutor(daemonThreads("student-import-"));
+        this.hashExecutor = Executors.newFixedThreadPool(hashThreads, daemonThreads("student-import-hash-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+        hashExecutor.shutdownNow();
+    }
+
+    /**
+     * 提交导入任务，上传文件先落盘再在后台逐行导入
+     */
+    public StudentImportResponse submit(MultipartFile file, boolean createAccount) {
+        String filename = file.getOriginalFilename();
+        String lower = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+        if (!lower.endsWith(".csv") && !lower.endsWith(".xlsx")) {
+            throw BusinessException.badRequest("仅支持 CSV 或 XLSX 文件");
+        }
+
+        Path temp;
+        try {
+            temp = Files.createTempFile("student-import-", lower.substring(lower.lastIndexOf('.')));
+            file.transferTo(temp);
+        } catch (IOException e) {
+            log.error("导入文件保存失败", e);
+            throw BusinessException.of("导入文件保存失败");
+        }
+
+        ImportTask task = new ImportTask(UUID.randomUUID().toString(), filename);
+        tasks.put(task.id, task);
+        importExecutor.execute(() -> run(task, temp, createAccount));
+        log.info("学生导入任务已提交: {} ({})", filename, task.id);
+        return task.toResponse();
+    }
+
+    /**
+     * 查询导入进度和错误明细
+     */
+    public StudentImportResponse getTask(String taskId) {
+        ImportTask task = tasks.get(taskId);
+        if (task == null) {
+            throw BusinessException.notFound("导入任务不存在或已过期");
+        }
+        return task.toResponse();
+    }
+
+    /**
+     * 清理已过期的导入任务
+     */
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeTasks() {
+        LocalDateTime deadline = LocalDateTime.now().minusHours(TASK_TTL_HOURS);
+        tasks.values().removeIf(task -> task.finishedAt != null && task.finishedAt.isBefore(deadline));
+    }
+
+    private void run(ImportTask task, Path file, boolean createAccount) {
+        Set<Long> touchedClasses = new HashSet<>();
+        try (SheetReader reader = SheetReader.open(file, task.fileName)) {
+            List<String> header = reader.next();
+            Map<String, Integer> columns = header != null ? resolveColumns(header) : Map.of();
+            if (!columns.containsKey("studentNo") || !columns.containsKey("name")) {
+                task.finish(FAILED, "表头缺少学号或姓名列");
+                return;
+            }
+
+            // 预加载已有学号、账号和班级，逐行校验时不再访问数据库
+            Set<String> studentNos = new HashSet<>(studentRepository.findAllStudentNos());
+            Set<String> usernames = createAccount ? new HashSet<>(userRepository.findAllUsernames()) : Set.of();
+            Map<String, Clazz> classes = clazzRepository.findAll().stream()
+                    .collect(Collectors.toMap(Clazz::getClassCode, Function.identity(), (a, b) -> a));
+            Long studentRoleId = createAccount
+                    ? roleRepository.findByRoleCode("STUDENT").map(Role::getId).orElse(null)
+                    : null;
+
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            List<String> cells;
+            while ((cells = reader.next()) != null) {
+                if (cells.stream().allMatch(cell -> cell == null || cell.isBlank())) {
+                    continue;
+                }
+                task.processed.incrementAndGet();
+
+                ImportRow row;
+                try {
+                    row = parseRow(reader.getRowNumber(), cells, columns, classes);
+                } catch (IllegalArgumentException e) {
+                    task.addError(reader.getRowNumber(), cell(cells, columns, "studentNo"), e.getMessage());
+                    continue;
+                }
+                if (!studentNos.add(row.studentNo)) {
+                    task.addError(row.rowNumber, row.studentNo, "学号已存在");
+                    continue;
+                }
+                if (createAccount && !usernames.add(row.studentNo)) {
+                    task.addError(row.rowNumber, row.studentNo, "登录账号已存在");
+                    continue;
+                }
+
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    persist(task, batch, createAccount, studentRoleId, touchedClasses);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                persist(task, batch, createAccount, studentRoleId, touchedClasses);
+            }
+            task.finish(COMPLETED, "导入完成");
+        } catch (IOException | RuntimeException e) {
+            log.error("学生导入失败: {}", task.fileName, e);
+            task.finish(FAILED, "导入失败: " + e.getMessage());
+        } finally {
+            recountClasses(touchedClasses);
+            pagedQueryExecutor.invalidate(Student.class, User.class);
+            keywordSearchIndex.rebuild(KeywordSearchIndex.Type.STUDENT);
+            suggestIndex.rebuild(SuggestIndex.Type.STUDENT);
+            dashboardAggregates.reconcile();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("导入临时文件删除失败: {}", file);
+            }
+            log.info("学生导入结束: {} 读取{}行, 成功{}行, 失败{}行", task.fileName,
+                    task.processed.get(), task.succeeded.get(), task.failed.get());
+        }
+    }
+
+    /**
+     * 写入一批学生：并行计算密码哈希，再在同一事务中批量插入账号和学生
+     */
+    private void persist(ImportTask task, List<ImportRow> batch, boolean createAccount,
+                         Long studentRoleId, Set<Long> touchedClasses) {
+        try {
+            List<String> passwords = createAccount ? hashPasswords(batch.size()) : List.of();
+            transactionTemplate.executeWithoutResult(status -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                Map<String, Long> userIds = Map.of();
+                if (createAccount) {
+                    List<Object[]> users = new ArrayList<>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        ImportRow row = batch.get(i);
+                        users.add(new Object[]{row.studentNo, passwords.get(i), row.name, row.email,
+                                studentRoleId, now, now});
+                    }
+                    jdbcTemplate.batchUpdate(INSERT_USER, users);
+                    userIds = userRepository.findIdsByUsernames(batch.stream().map(row -> row.studentNo).toList())
+                            .stream()
+                            .collect(Collectors.toMap(r -> (String) r[0], r -> ((Number) r[1]).longValue()));
+                }
+
+                List<Object[]> students = new ArrayList<>(batch.size());
+                for (ImportRow row : batch) {
+                    students.add(new Object[]{row.studentNo, row.name, row.gender, toSqlDate(row.birthDate),
+                            row.idCard, row.phone, row.email, row.address, row.nativePlace, row.nation,
+                            row.politicalStatus, row.classId, toSqlDate(row.enrollmentDate),
+                            toSqlDate(row.graduationDate), row.remark, userIds.get(row.studentNo), now, now});
+                }
+                jdbcTemplate.batchUpdate(INSERT_STUDENT, students);
+            });
+
+            batch.stream().map(row -> row.classId).filter(Objects::nonNull).forEach(touchedClasses::add);
+            task.succeeded.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("学生导入批次写入失败: {}", e.getMessage());
+            batch.forEach(row -> task.addError(row.rowNumber, row.studentNo, "写入失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 并行计算默认密码哈希，每个账号使用独立的盐
+     */
+    private List<String> hashPasswords(int count) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(DEFAULT_PASSWORD), hashExecutor));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * 按实际学生数重算涉及班级的人数，每个班级只更新一次
+     */
+    private void recountClasses(Set<Long> classIds) {
+        if (classIds.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(RECOUNT_CLASS, classIds.stream().map(id -> new Object[]{id}).toList());
+        } catch (RuntimeException e) {
+            log.error("班级人数更新失败: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Integer> resolveColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i) != null ? header.get(i).trim() : "";
+            String field = HEADER_ALIASES.getOrDefault(name, name);
+            columns.putIfAbsent(field, i);
+        }
+        return columns;
+    }
+
+    private ImportRow parseRow(int rowNumber, List<String> cells, Map<String, Integer> columns,
+                               Map<String, Clazz> classes) {
+        ImportRow row = new ImportRow(rowNumber);
+        row.studentNo = cell(cells, columns, "studentNo");
+        row.name = cell(cells, columns, "name");
+        if (row.studentNo == null) {
+            throw new IllegalArgumentException("学号不能为空");
+        }
+        if (row.name == null) {
+            throw new IllegalArgumentException("姓名不能为空");
+        }
+        row.gender = parseGender(cell(cells, columns, "gender"));
+        row.birthDate = parseDate(cell(cells, columns, "birthDate"), "出生日期");
+        row.idCard = cell(cells, columns, "idCard");
+        row.phone = cell(cells, columns, "phone");
+        row.email = cell(cells, columns, "email");
+        row.address = cell(cells, columns, "address");
+        row.nativePlace = cell(cells, columns, "nativePlace");
+        row.nation = cell(cells, columns, "nation");
+        row.politicalStatus = cell(cells, columns, "politicalStatus");
+        row.enrollmentDate = parseDate(cell(cells, columns, "enrollmentDate"), "入学日期");
+        row.graduationDate = parseDate(cell(cells, columns, "graduationDate"), "毕业日期");
+        row.remark = cell(cells, columns, "remark");
+
+        String classCode = cell(cells, columns, "classCode");
+        if (classCode != null) {
+            Clazz clazz = classes.get(classCode);
+            if (clazz == null) {
+                throw new IllegalArgumentException("班级不存在: " + classCode);
+            }
+            row.classId = clazz.getId();
+        }
+        return row;
+    }
+
+    private String cell(List<String> cells, Map<String, Integer> columns, String field) {
+        Integer index = columns.get(field);
+        if (index == null || index >= cells.size()) {
+            return null;
+        }
+        String value = cells.get(index);
+        return StringUtils.hasText(value) ? value.trim() : null;
+    }
+
+    private Integer parseGender(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return switch (value) {
+            case "男", "1" -> 1;
+            case "女", "2" -> 2;
+            default -> 0;
+        };
+    }
+
+    /**
+     * 解析日期，兼容文本日期和 Excel 日期序列号
+     */
+    private LocalDate parseDate(String value, String label) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (value.matches("\\d+(\\.\\d+)?")) {
+                return EXCEL_EPOCH.plusDays((long) Double.parseDouble(value));
+            }
+            return LocalDate.parse(value.replace('/', '-').replace('.', '-'), DATE_FORMAT);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException(label + "格式错误: " + value);
+        }
+    }
+
+    private Date toSqlDate(LocalDate date) {
+        return date != null ? Date.valueOf(date) : null;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 待导入的一行数据
+     */
+    private static final class ImportRow {
+
+        private final int rowNumber;
+        private String studentNo;
+        private String name;
+        private Integer gender;
+        private LocalDate birthDate;
+        private String idCard;
+        private String phone;
+        private String email;
+        private String address;
+        private String nativePlace;
+        private String nation;
+        private String politicalStatus;
+        private Long classId;
+        private LocalDate enrollmentDate;
+        private LocalDate graduationDate;
+        private String remark;
+
+        private ImportRow(int rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+    }
+
+    /**
+     * 导入任务进度
+     */
+    private static final class ImportTask {
+
+        private final String id;
+        private final String fileName;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<StudentImportResponse.RowError> errors = new ArrayList<>();
+
+        private volatile String status = RUNNING;
+        private volatile String message;
+        private volatile LocalDateTime finishedAt;
+
+        private ImportTask(String id, String fileName) {
+            this.id = id;
+            this.fileName = fileName;
+        }
+
+        private void addError(int row, String studentNo, String message) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < ERROR_LIMIT) {
+                    errors.add(StudentImportResponse.RowError.builder()
+                            .row(row)
+                            .studentNo(studentNo)
+                            .message(message)
+                            .build());
+                }
+            }
+        }
+
+        private void finish(String status, String message) {
+            this.message = message;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        private StudentImportResponse toResponse() {
+            List<StudentImportResponse.RowError> snapshot;
+            synchronized (errors) {
+                snapshot = new ArrayList<>(errors);
+            }
+            return StudentImportResponse.builder()
+                    .taskId(id)
+                    .fileName(fileName)
+                    .status(status)
+                    .message(message)
+                    .processed(processed.get())
+                    .succeeded(succeeded.get())
+                    .failed(failed.get())
+                    .errors(snapshot)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
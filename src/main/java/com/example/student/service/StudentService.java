@@ -8,10 +8,10 @@ import com.example.student.entity.Student;
 import com.example.student.entity.User;
 import com.example.student.exception.BusinessException;
 import com.example.student.repository.*;
+import com.example.student.util.KeysetCursor;
 import com.example.student.util.PageVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -23,6 +23,7 @@ import org.springframework.util.StringUtils;
 
 import jakarta.persistence.criteria.Predicate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,19 +40,43 @@ public class StudentService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final KeywordSearchIndex keywordSearchIndex;
+    private final SuggestIndex suggestIndex;
+    private final DashboardAggregates dashboardAggregates;
+    private final RankingService rankingService;
 
     /**
      * 分页查询学生
      */
     public PageVO<StudentResponse> findPage(Integer page, Integer size, String keyword, 
-                                            Long classId, Integer status) {
+                                            Long classId, Integer status, boolean estimate) {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
-        Specification<Student> spec = (root, query, cb) -> {
+        Specification<Student> spec = buildSpec(keyword, classId, status);
+        List<Object> filters = Arrays.asList(keyword, classId, status);
+        return pagedQueryExecutor.findPage(Student.class, spec, pageable, filters, estimate, this::toResponse);
+    }
+
+    /**
+     * 游标分页查询学生，withTotal 为 false 时不执行 count 查询
+     */
+    public PageVO<StudentResponse> findCursorPage(String cursor, Integer size,
+                                                  String keyword, Long classId, Integer status, boolean withTotal) {
+        int pageSize = KeysetCursor.size(size);
+        Specification<Student> spec = buildSpec(keyword, classId, status);
+        List<Student> rows = studentRepository.findBy(spec.and(KeysetCursor.after(cursor)),
+                query -> query.sortBy(KeysetCursor.SORT).limit(pageSize + 1).all());
+        Long total = withTotal ? studentRepository.count(spec.and(KeysetCursor.after(null))) : null;
+        return KeysetCursor.toPage(rows, pageSize, this::toResponse, total);
+    }
+
+    private Specification<Student> buildSpec(String keyword, Long classId, Integer status) {
+        List<Long> keywordIds = keywordSearchIndex.searchForFilter(KeywordSearchIndex.Type.STUDENT, keyword);
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("isDeleted"), false));
-            
-            if (StringUtils.hasText(keyword)) {
+            if (keywordIds != null) {
+                predicates.add(keywordIds.isEmpty() ? cb.disjunction() : root.get("id").in(keywordIds));
+            } else if (StringUtils.hasText(keyword)) {
                 Predicate nameLike = cb.like(root.get("name"), "%" + keyword + "%");
                 Predicate studentNoLike = cb.like(root.get("studentNo"), "%" + keyword + "%");
                 predicates.add(cb.or(nameLike, studentNoLike));
@@ -64,13 +89,6 @@ public class StudentService {
             }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-        
-        Page<Student> pageResult = studentRepository.findAll(spec, pageable);
-        List<StudentResponse> records = pageResult.getContent().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        
-        return PageVO.fromPage(pageResult, records);
     }
 
     /**
@@ -78,7 +96,6 @@ public class StudentService {
      */
     public List<StudentResponse> findAll() {
         return studentRepository.findAll().stream()
-                .filter(s -> !s.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -88,7 +105,6 @@ public class StudentService {
      */
     public List<StudentResponse> findByClassId(Long classId) {
         return studentRepository.findByClazzId(classId).stream()
-                .filter(s -> !s.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -141,6 +157,11 @@ public class StudentService {
         }
 
         student = studentRepository.save(student);
+        pagedQueryExecutor.invalidate(Student.class, User.class);
+        dashboardAggregates.studentChanged(null, DashboardAggregates.StudentFacts.of(student));
+        suggestIndex.put(SuggestIndex.Type.STUDENT, student.getId(), student.getName(), student.getStudentNo());
+        keywordSearchIndex.put(KeywordSearchIndex.Type.STUDENT, student.getId(),
+                student.getName(), student.getStudentNo());
         log.info("创建学生成功: {}", student.getName());
         return toResponse(student);
     }
@@ -152,6 +173,7 @@ public class StudentService {
     public StudentResponse update(Long id, StudentRequest request) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> BusinessException.notFound("学生不存在"));
+        DashboardAggregates.StudentFacts before = DashboardAggregates.StudentFacts.of(student);
 
         // 检查学号是否被其他学生使用
         if (!student.getStudentNo().equals(request.getStudentNo()) &&
@@ -188,6 +210,12 @@ public class StudentService {
         }
 
         student = studentRepository.save(student);
+        pagedQueryExecutor.invalidate(Student.class);
+        dashboardAggregates.studentChanged(before, DashboardAggregates.StudentFacts.of(student));
+        rankingService.studentChanged(student.getId(), RankingService.Placement.of(student.getClazz()));
+        suggestIndex.put(SuggestIndex.Type.STUDENT, student.getId(), student.getName(), student.getStudentNo());
+        keywordSearchIndex.put(KeywordSearchIndex.Type.STUDENT, student.getId(),
+                student.getName(), student.getStudentNo());
         log.info("更新学生成功: {}", student.getName());
         return toResponse(student);
     }
@@ -209,6 +237,11 @@ public class StudentService {
 
         student.setIsDeleted(true);
         studentRepository.save(student);
+        pagedQueryExecutor.invalidate(Student.class);
+        dashboardAggregates.studentChanged(DashboardAggregates.StudentFacts.of(student), null);
+        rankingService.studentChanged(student.getId(), null);
+        suggestIndex.remove(SuggestIndex.Type.STUDENT, student.getId());
+        keywordSearchIndex.remove(KeywordSearchIndex.Type.STUDENT, student.getId());
         log.info("删除学生成功: {}", student.getName());
     }
 
@@ -221,11 +254,15 @@ public class StudentService {
     }
 
     /**
-     * 搜索学生
+     * 搜索学生，按ID倒序最多返回 search-index.max-results 条
      */
     public List<StudentResponse> search(String keyword) {
-        return studentRepository.searchByKeyword(keyword).stream()
-                .filter(s -> !s.getIsDeleted())
+        List<Long> ids = keywordSearchIndex.search(KeywordSearchIndex.Type.STUDENT, keyword);
+        List<Student> students = ids != null
+                ? KeywordSearchIndex.sortByIds(ids, studentRepository.findAllById(ids), Student::getId)
+                : studentRepository.searchByKeyword(keyword,
+                        PageRequest.of(0, keywordSearchIndex.getMaxResults()));
+        return students.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,246 @@
+package com.example.student.service;
+
+import com.example.student.dto.response.SuggestionResponse;
+import com.example.student.exception.BusinessException;
+import com.example.student.util.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 输入联想索引
+ * 学生（学号、姓名）、班级（编号、名称）、课程（编号、名称）按词条有序存放在内存中，
+ * 前缀查询即有序表的区间扫描，不访问数据库；由各服务的写操作在事务提交后增量更新
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SuggestIndex {
+
+    /**
+     * 联想的数据类型及其加载语句，返回 id、名称、编号
+     */
+    public enum Type {
+        STUDENT("SELECT id, name, student_no FROM edu_student WHERE is_deleted = false"),
+        CLASS("SELECT id, class_name, class_code FROM edu_class WHERE is_deleted = false"),
+        COURSE("SELECT id, course_name, course_code FROM edu_course WHERE is_deleted = false");
+
+        private final String loadSql;
+
+        Type(String loadSql) {
+            this.loadSql = loadSql;
+        }
+
+        public static Type of(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return Type.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw BusinessException.badRequest("不支持的联想类型: " + value);
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${suggest.max-limit:20}")
+    private int maxLimit;
+
+    @Value("${suggest.scan-limit:200}")
+    private int scanLimit;
+
+    // 小写词条 -> 以该词条为名称或编号的记录
+    private final NavigableMap<String, Set<Entry>> terms = new ConcurrentSkipListMap<>();
+
+    // (类型, ID) -> 记录，用于更新和删除时找到旧词条
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    // 正在重建的类型 -> 重建期间提交的增删操作，加载和清理完成后按顺序重放
+    private final Map<Type, List<Runnable>> rebuildBuffers = new ConcurrentHashMap<>();
+
+    // 重建串行执行；导入后的重建不能因另一次重建正在进行而跳过，否则导入的数据可能不在其快照中
+    private final Object rebuildLock = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Type type : Type.values()) {
+            rebuild(type);
+        }
+    }
+
+    /**
+     * 从数据库重新加载指定类型的词条；
+     * 加载期间提交的增删操作先记下，加载和清理完成后重放，避免被加载时的旧数据覆盖或误删
+     */
+    public void rebuild(Type type) {
+        synchronized (rebuildLock) {
+            doRebuild(type);
+        }
+    }
+
+    private void doRebuild(Type type) {
+        List<Runnable> buffer = new ArrayList<>();
+        rebuildBuffers.put(type, buffer);
+        try {
+            long start = System.currentTimeMillis();
+            Set<Long> loaded = new HashSet<>();
+            jdbcTemplate.query(type.loadSql, rs -> {
+                long id = rs.getLong(1);
+                loaded.add(id);
+                doPut(new Entry(type, id, rs.getString(2), rs.getString(3)));
+            });
+            entries.keySet().stream()
+                    .filter(key -> key.type() == type && !loaded.contains(key.id()))
+                    .toList()
+                    .forEach(key -> doRemove(type, key.id()));
+            synchronized (buffer) {
+                buffer.forEach(Runnable::run);
+                rebuildBuffers.remove(type, buffer);
+            }
+            log.info("联想词条已加载: {} {}条, 重放{}条变更, 耗时{}ms", type, loaded.size(), buffer.size(),
+                    System.currentTimeMillis() - start);
+        } finally {
+            rebuildBuffers.remove(type, buffer);
+        }
+    }
+
+    /**
+     * 新增或更新一条记录的词条，在事务提交后执行
+     */
+    public void put(Type type, Long id, String name, String code) {
+        Entry entry = new Entry(type, id, name, code);
+        TransactionCallbacks.afterCommit(() -> apply(type, () -> doPut(entry)));
+    }
+
+    /**
+     * 移除一条记录的词条，在事务提交后执行
+     */
+    public void remove(Type type, Long id) {
+        TransactionCallbacks.afterCommit(() -> apply(type, () -> doRemove(type, id)));
+    }
+
+    /**
+     * 立即应用；正在重建时同时记入重放列表，增删操作重复执行结果不变
+     */
+    private void apply(Type type, Runnable operation) {
+        List<Runnable> buffer = rebuildBuffers.get(type);
+        if (buffer != null) {
+            synchronized (buffer) {
+                buffer.add(operation);
+            }
+        }
+        operation.run();
+    }
+
+    /**
+     * 前缀联想：完全匹配优先，其次词条越短越靠前，type 为空时查询所有类型
+     */
+    public List<SuggestionResponse> suggest(String prefix, Type type, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        String from = prefix.trim().toLowerCase(Locale.ROOT);
+        int size = Math.max(1, Math.min(limit, maxLimit));
+
+        // 按访问过的记录数计算扫描上限，类型不符或重复的记录同样计数，保证单次联想的开销有界
+        List<Candidate> candidates = new ArrayList<>();
+        Set<Key> seen = new HashSet<>();
+        int scanned = 0;
+        scan:
+        for (Map.Entry<String, Set<Entry>> term : terms.subMap(from, true, from + Character.MAX_VALUE, false)
+                .entrySet()) {
+            for (Entry entry : term.getValue()) {
+                if (++scanned > scanLimit) {
+                    break scan;
+                }
+                if ((type == null || entry.type() == type) && seen.add(new Key(entry.type(), entry.id()))) {
+                    candidates.add(new Candidate(entry, term.getKey()));
+                }
+            }
+        }
+
+        return candidates.stream()
+                .sorted(Comparator.comparing((Candidate candidate) -> !candidate.term().equals(from))
+                        .thenComparingInt(candidate -> candidate.term().length())
+                        .thenComparing(candidate -> candidate.entry().type())
+                        .thenComparing(Candidate::term))
+                .limit(size)
+                .map(candidate -> candidate.entry().toResponse())
+                .toList();
+    }
+
+    private synchronized void doPut(Entry entry) {
+        Entry previous = entries.put(new Key(entry.type(), entry.id()), entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        for (String term : entry.terms()) {
+            terms.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+    }
+
+    private synchronized void doRemove(Type type, Long id) {
+        Entry previous = entries.remove(new Key(type, id));
+        if (previous != null) {
+            unlink(previous);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        for (String term : entry.terms()) {
+            Set<Entry> linked = terms.get(term);
+            if (linked != null) {
+                linked.remove(entry);
+                if (linked.isEmpty()) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    private record Key(Type type, Long id) {
+    }
+
+    private record Candidate(Entry entry, String term) {
+    }
+
+    private record Entry(Type type, Long id, String name, String code) {
+
+        private List<String> terms() {
+            List<String> terms = new ArrayList<>(2);
+            if (name != null && !name.isBlank()) {
+                terms.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+            if (code != null && !code.isBlank()) {
+                terms.add(code.trim().toLowerCase(Locale.ROOT));
+            }
+            return terms;
+        }
+
+        private SuggestionResponse toResponse() {
+            return SuggestionResponse.builder()
+                    .type(type.name().toLowerCase(Locale.ROOT))
+                    .id(id)
+                    .name(name)
+                    .code(code)
+                    .build();
+        }
+    }
+}
@@ -12,7 +12,6 @@ import com.example.student.repository.UserRepository;
 import com.example.student.util.PageVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -24,6 +23,7 @@ import org.springframework.util.StringUtils;
 
 import jakarta.persistence.criteria.Predicate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,19 +39,22 @@ public class TeacherService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final KeywordSearchIndex keywordSearchIndex;
+    private final DashboardAggregates dashboardAggregates;
 
     /**
      * 分页查询教师
      */
     public PageVO<TeacherResponse> findPage(Integer page, Integer size, String keyword, 
-                                            String department, Integer status) {
+                                            String department, Integer status, boolean estimate) {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
+        List<Long> keywordIds = keywordSearchIndex.searchForFilter(KeywordSearchIndex.Type.TEACHER, keyword);
         Specification<Teacher> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("isDeleted"), false));
-            
-            if (StringUtils.hasText(keyword)) {
+            if (keywordIds != null) {
+                predicates.add(keywordIds.isEmpty() ? cb.disjunction() : root.get("id").in(keywordIds));
+            } else if (StringUtils.hasText(keyword)) {
                 Predicate nameLike = cb.like(root.get("name"), "%" + keyword + "%");
                 Predicate teacherNoLike = cb.like(root.get("teacherNo"), "%" + keyword + "%");
                 predicates.add(cb.or(nameLike, teacherNoLike));
@@ -64,13 +67,9 @@ public class TeacherService {
             }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-        
-        Page<Teacher> pageResult = teacherRepository.findAll(spec, pageable);
-        List<TeacherResponse> records = pageResult.getContent().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        
-        return PageVO.fromPage(pageResult, records);
+
+        List<Object> filters = Arrays.asList(keyword, department, status);
+        return pagedQueryExecutor.findPage(Teacher.class, spec, pageable, filters, estimate, this::toResponse);
     }
 
     /**
@@ -78,7 +77,6 @@ public class TeacherService {
      */
     public List<TeacherResponse> findAll() {
         return teacherRepository.findAll().stream()
-                .filter(t -> !t.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -121,6 +119,10 @@ public class TeacherService {
         }
 
         teacher = teacherRepository.save(teacher);
+        pagedQueryExecutor.invalidate(Teacher.class, User.class);
+        dashboardAggregates.teacherChanged(null, DashboardAggregates.TeacherFacts.of(teacher));
+        keywordSearchIndex.put(KeywordSearchIndex.Type.TEACHER, teacher.getId(),
+                teacher.getName(), teacher.getTeacherNo());
         log.info("创建教师成功: {}", teacher.getName());
         return toResponse(teacher);
     }
@@ -132,6 +134,7 @@ public class TeacherService {
     public TeacherResponse update(Long id, TeacherRequest request) {
         Teacher teacher = teacherRepository.findById(id)
                 .orElseThrow(() -> BusinessException.notFound("教师不存在"));
+        DashboardAggregates.TeacherFacts before = DashboardAggregates.TeacherFacts.of(teacher);
 
         // 检查工号是否被其他教师使用
         if (!teacher.getTeacherNo().equals(request.getTeacherNo()) &&
@@ -141,6 +144,10 @@ public class TeacherService {
 
         copyProperties(request, teacher);
         teacher = teacherRepository.save(teacher);
+        pagedQueryExecutor.invalidate(Teacher.class);
+        dashboardAggregates.teacherChanged(before, DashboardAggregates.TeacherFacts.of(teacher));
+        keywordSearchIndex.put(KeywordSearchIndex.Type.TEACHER, teacher.getId(),
+                teacher.getName(), teacher.getTeacherNo());
         log.info("更新教师成功: {}", teacher.getName());
         return toResponse(teacher);
     }
@@ -154,6 +161,9 @@ public class TeacherService {
                 .orElseThrow(() -> BusinessException.notFound("教师不存在"));
         teacher.setIsDeleted(true);
         teacherRepository.save(teacher);
+        pagedQueryExecutor.invalidate(Teacher.class);
+        dashboardAggregates.teacherChanged(DashboardAggregates.TeacherFacts.of(teacher), null);
+        keywordSearchIndex.remove(KeywordSearchIndex.Type.TEACHER, teacher.getId());
         log.info("删除教师成功: {}", teacher.getName());
     }
 
@@ -166,11 +176,15 @@ public class TeacherService {
     }
 
     /**
-     * 搜索教师
+     * 搜索教师，按ID倒序最多返回 search-index.max-results 条
      */
     public List<TeacherResponse> search(String keyword) {
-        return teacherRepository.searchByKeyword(keyword).stream()
-                .filter(t -> !t.getIsDeleted())
+        List<Long> ids = keywordSearchIndex.search(KeywordSearchIndex.Type.TEACHER, keyword);
+        List<Teacher> teachers = ids != null
+                ? KeywordSearchIndex.sortByIds(ids, teacherRepository.findAllById(ids), Teacher::getId)
+                : teacherRepository.searchByKeyword(keyword,
+                        PageRequest.of(0, keywordSearchIndex.getMaxResults()));
+        return teachers.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -7,10 +7,12 @@ import com.example.student.entity.User;
 import com.example.student.exception.BusinessException;
 import com.example.student.repository.RoleRepository;
 import com.example.student.repository.UserRepository;
+import com.example.student.security.TokenVersionRegistry;
+import com.example.student.security.UserDetailsCache;
+import com.example.student.util.KeysetCursor;
 import com.example.student.util.PageVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -22,6 +24,7 @@ import org.springframework.util.StringUtils;
 
 import jakarta.persistence.criteria.Predicate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -36,17 +39,36 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final PagedQueryExecutor pagedQueryExecutor;
 
     /**
      * 分页查询用户
      */
-    public PageVO<UserResponse> findPage(Integer page, Integer size, String keyword, Integer userType, Integer status) {
+    public PageVO<UserResponse> findPage(Integer page, Integer size, String keyword, Integer userType, Integer status, boolean estimate) {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
-        Specification<User> spec = (root, query, cb) -> {
+        Specification<User> spec = buildSpec(keyword, userType, status);
+        List<Object> filters = Arrays.asList(keyword, userType, status);
+        return pagedQueryExecutor.findPage(User.class, spec, pageable, filters, estimate, this::toResponse);
+    }
+
+    /**
+     * 游标分页查询用户，withTotal 为 false 时不执行 count 查询
+     */
+    public PageVO<UserResponse> findCursorPage(String cursor, Integer size,
+                                               String keyword, Integer userType, Integer status, boolean withTotal) {
+        int pageSize = KeysetCursor.size(size);
+        Specification<User> spec = buildSpec(keyword, userType, status);
+        List<User> rows = userRepository.findBy(spec.and(KeysetCursor.after(cursor)),
+                query -> query.sortBy(KeysetCursor.SORT).limit(pageSize + 1).all());
+        Long total = withTotal ? userRepository.count(spec.and(KeysetCursor.after(null))) : null;
+        return KeysetCursor.toPage(rows, pageSize, this::toResponse, total);
+    }
+
+    private Specification<User> buildSpec(String keyword, Integer userType, Integer status) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("isDeleted"), false));
-            
             if (StringUtils.hasText(keyword)) {
                 Predicate usernameLike = cb.like(root.get("username"), "%" + keyword + "%");
                 Predicate realNameLike = cb.like(root.get("realName"), "%" + keyword + "%");
@@ -61,13 +83,6 @@ public class UserService {
             }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-        
-        Page<User> pageResult = userRepository.findAll(spec, pageable);
-        List<UserResponse> records = pageResult.getContent().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        
-        return PageVO.fromPage(pageResult, records);
     }
 
     /**
@@ -75,7 +90,6 @@ public class UserService {
      */
     public List<UserResponse> findAll() {
         return userRepository.findAll().stream()
-                .filter(u -> !u.getIsDeleted())
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -114,6 +128,7 @@ public class UserService {
         }
         
         user = userRepository.save(user);
+        pagedQueryExecutor.invalidate(User.class);
         log.info("创建用户成功: {}", user.getUsername());
         return toResponse(user);
     }
@@ -139,6 +154,7 @@ public class UserService {
             throw BusinessException.badRequest("邮箱已被使用");
         }
         
+        String oldUsername = user.getUsername();
         copyProperties(request, user);
         
         if (request.getRoleId() != null) {
@@ -152,6 +168,12 @@ public class UserService {
         }
         
         user = userRepository.save(user);
+        userDetailsCache.evict(oldUsername);
+        if (!oldUsername.equals(user.getUsername())) {
+            userDetailsCache.evict(user.getUsername());
+        }
+        tokenVersionRegistry.revoke(user.getId());
+        pagedQueryExecutor.invalidate(User.class);
         log.info("更新用户成功: {}", user.getUsername());
         return toResponse(user);
     }
@@ -165,6 +187,9 @@ public class UserService {
                 .orElseThrow(() -> BusinessException.notFound("用户不存在"));
         user.setIsDeleted(true);
         userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        tokenVersionRegistry.revoke(user.getId());
+        pagedQueryExecutor.invalidate(User.class);
         log.info("删除用户成功: {}", user.getUsername());
     }
 
@@ -185,6 +210,9 @@ public class UserService {
                 .orElseThrow(() -> BusinessException.notFound("用户不存在"));
         user.setStatus(status);
         userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        tokenVersionRegistry.revoke(user.getId());
+        pagedQueryExecutor.invalidate(User.class);
         log.info("更新用户状态: {} -> {}", user.getUsername(), status);
     }
 
@@ -197,6 +225,8 @@ public class UserService {
                 .orElseThrow(() -> BusinessException.notFound("用户不存在"));
         user.setPassword(passwordEncoder.encode(newPassword != null ? newPassword : "123456"));
         userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        tokenVersionRegistry.revoke(user.getId());
         log.info("重置用户密码: {}", user.getUsername());
     }
 
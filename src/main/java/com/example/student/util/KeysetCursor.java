@@ -0,0 +1,95 @@
+package com.example.student.util;
+
+import com.example.student.entity.BaseEntity;
+import com.example.student.exception.BusinessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页工具 - 按 (created_at, id) 倒序定位下一页，避免深分页的 OFFSET 扫描
+ * 游标对客户端不透明，内容为最后一条记录的创建时间和ID
+ */
+public final class KeysetCursor {
+
+    /**
+     * 游标分页的固定排序，与 (is_deleted, created_at, id) 索引一致
+     */
+    public static final Sort SORT = Sort.by(Sort.Direction.DESC, "createdAt")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    /**
+     * 每页最大条数
+     */
+    public static final int MAX_SIZE = 100;
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * 校验每页条数，超过上限时按上限返回
+     */
+    public static int size(Integer size) {
+        if (size == null || size < 1) {
+            throw BusinessException.badRequest("每页条数必须大于0");
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * 定位到游标之后的记录，游标为空时从第一条开始；
+     * 创建时间为空的记录无法比较先后，游标分页不返回
+     */
+    public static <T extends BaseEntity> Specification<T> after(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return (root, query, cb) -> cb.isNotNull(root.get("createdAt"));
+        }
+        Position position = decode(cursor);
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.<LocalDateTime>get("createdAt"), position.createdAt()),
+                cb.and(cb.equal(root.get("createdAt"), position.createdAt()),
+                        cb.lessThan(root.<Long>get("id"), position.id())));
+    }
+
+    /**
+     * 根据多查询的一条判断是否有下一页，并生成下一页游标
+     */
+    public static <T extends BaseEntity, R> PageVO<R> toPage(List<T> rows, int size, Function<T, R> mapper,
+                                                             Long total) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return PageVO.<R>builder()
+                .records(content.stream().map(mapper).collect(Collectors.toList()))
+                .total(total)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? encode(content.get(size - 1)) : null)
+                .build();
+    }
+
+    private static String encode(BaseEntity entity) {
+        String raw = entity.getCreatedAt() + "|" + entity.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw BusinessException.badRequest("无效的分页游标");
+        }
+    }
+
+    private record Position(LocalDateTime createdAt, Long id) {
+    }
+}
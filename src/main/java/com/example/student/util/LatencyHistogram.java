@@ -0,0 +1,81 @@
+package com.example.student.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图 - 固定毫秒分桶，无锁计数
+ */
+public class LatencyHistogram {
+
+    // 各分桶上界（毫秒），最后一个分桶收纳超出上界的样本
+    private static final long[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int index = 0;
+        while (index < BOUNDS.length && millis > BOUNDS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / n;
+    }
+
+    /**
+     * 按分桶估算百分位耗时（毫秒），返回所在分桶的上界
+     */
+    public long getPercentileMillis(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= threshold) {
+                return BOUNDS[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * 各分桶计数快照，键为分桶上界描述
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS.length; i++) {
+            result.put("<=" + BOUNDS[i] + "ms", buckets[i].sum());
+        }
+        result.put(">" + BOUNDS[BOUNDS.length - 1] + "ms", buckets[BOUNDS.length].sum());
+        return result;
+    }
+}
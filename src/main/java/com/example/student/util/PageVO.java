@@ -24,6 +24,8 @@ public class PageVO<T> {
     private Integer size;         // 每页大小
     private Boolean hasNext;      // 是否有下一页
     private Boolean hasPrevious;  // 是否有上一页
+    private String nextCursor;    // 下一页游标（游标分页时返回）
+    private Boolean estimated;    // 总记录数是否为估算值
 
     /**
      * 从Spring Data Page转换
@@ -0,0 +1,284 @@
+package com.example.student.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 表格逐行读取工具 - 支持 CSV 和 XLSX，不把整个文件读入内存
+ * XLSX 仅读取第一个工作表，共享字符串表会整体加载
+ */
+public abstract class SheetReader implements Closeable {
+
+    protected int rowNumber;
+
+    /**
+     * 根据文件名后缀打开读取器
+     */
+    public static SheetReader open(Path file, String filename) throws IOException {
+        String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".csv")) {
+            return new CsvReader(file);
+        }
+        if (name.endsWith(".xlsx")) {
+            return new XlsxReader(file);
+        }
+        throw new IOException("不支持的文件格式: " + filename);
+    }
+
+    /**
+     * 读取下一行，读完时返回 null
+     */
+    public abstract List<String> next() throws IOException;
+
+    /**
+     * 最近一次读取的行号（从1开始）
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * CSV 读取器，支持双引号包裹的字段、字段内换行和 "" 转义
+     */
+    private static final class CsvReader extends SheetReader {
+
+        private final BufferedReader reader;
+
+        private CsvReader(Path file) throws IOException {
+            this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset();
+            }
+        }
+
+        @Override
+        public List<String> next() throws IOException {
+            int ch = reader.read();
+            if (ch == -1) {
+                return null;
+            }
+            rowNumber++;
+
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (ch != -1) {
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+                        if (following == '"') {
+                            cell.append('"');
+                        } else {
+                            quoted = false;
+                            if (following != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        cell.append((char) ch);
+                    }
+                } else if (ch == '"' && cell.isEmpty()) {
+                    quoted = true;
+                } else if (ch == ',') {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else if (ch == '\n') {
+                    break;
+                } else if (ch != '\r') {
+                    cell.append((char) ch);
+                }
+                ch = reader.read();
+            }
+            cells.add(cell.toString());
+            return cells;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * XLSX 读取器，以 StAX 流式解析工作表 XML
+     */
+    private static final class XlsxReader extends SheetReader {
+
+        private final ZipFile zipFile;
+        private final InputStream sheetStream;
+        private final XMLStreamReader sheet;
+        private final List<String> sharedStrings;
+
+        private XlsxReader(Path file) throws IOException {
+            this.zipFile = new ZipFile(file.toFile());
+            try {
+                XMLInputFactory factory = XMLInputFactory.newFactory();
+                factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+                factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+                this.sharedStrings = readSharedStrings(factory);
+                ZipEntry entry = findFirstSheet();
+                if (entry == null) {
+                    throw new IOException("未找到工作表");
+                }
+                this.sheetStream = zipFile.getInputStream(entry);
+                this.sheet = factory.createXMLStreamReader(sheetStream);
+            } catch (XMLStreamException | IOException | RuntimeException e) {
+                zipFile.close();
+                throw e instanceof IOException io ? io : new IOException("XLSX 文件解析失败", e);
+            }
+        }
+
+        @Override
+        public List<String> next() throws IOException {
+            try {
+                while (sheet.hasNext()) {
+                    if (sheet.next() == XMLStreamConstants.START_ELEMENT && "row".equals(sheet.getLocalName())) {
+                        String r = sheet.getAttributeValue(null, "r");
+                        rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                        return readRow();
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                throw new IOException("XLSX 文件解析失败", e);
+            }
+        }
+
+        private List<String> readRow() throws XMLStreamException {
+            List<String> cells = new ArrayList<>();
+            int column = -1;
+            String type = null;
+            StringBuilder value = new StringBuilder();
+            while (sheet.hasNext()) {
+                int event = sheet.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = sheet.getLocalName();
+                    if ("c".equals(name)) {
+                        String ref = sheet.getAttributeValue(null, "r");
+                        column = ref != null ? columnIndex(ref) : cells.size();
+                        type = sheet.getAttributeValue(null, "t");
+                        value.setLength(0);
+                    } else if ("v".equals(name) || "t".equals(name)) {
+                        value.append(sheet.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = sheet.getLocalName();
+                    if ("c".equals(name)) {
+                        while (cells.size() < column) {
+                            cells.add("");
+                        }
+                        cells.add(cellValue(type, value.toString()));
+                    } else if ("row".equals(name)) {
+                        break;
+                    }
+                }
+            }
+            return cells;
+        }
+
+        private String cellValue(String type, String raw) {
+            if ("s".equals(type) && !raw.isEmpty()) {
+                int index = Integer.parseInt(raw.trim());
+                return index < sharedStrings.size() ? sharedStrings.get(index) : "";
+            }
+            if ("b".equals(type)) {
+                return "1".equals(raw) ? "TRUE" : "FALSE";
+            }
+            return raw;
+        }
+
+        private List<String> readSharedStrings(XMLInputFactory factory) throws IOException, XMLStreamException {
+            List<String> strings = new ArrayList<>();
+            ZipEntry entry = zipFile.getEntry("xl/sharedStrings.xml");
+            if (entry == null) {
+                return strings;
+            }
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                XMLStreamReader reader = factory.createXMLStreamReader(in);
+                StringBuilder text = new StringBuilder();
+                boolean phonetic = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("si".equals(name)) {
+                            text.setLength(0);
+                        } else if ("rPh".equals(name)) {
+                            phonetic = true;
+                        } else if ("t".equals(name) && !phonetic) {
+                            text.append(reader.getElementText());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("si".equals(name)) {
+                            strings.add(text.toString());
+                        } else if ("rPh".equals(name)) {
+                            phonetic = false;
+                        }
+                    }
+                }
+                reader.close();
+            }
+            return strings;
+        }
+
+        private ZipEntry findFirstSheet() {
+            ZipEntry entry = zipFile.getEntry("xl/worksheets/sheet1.xml");
+            if (entry != null) {
+                return entry;
+            }
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry candidate = entries.nextElement();
+                if (candidate.getName().startsWith("xl/worksheets/") && candidate.getName().endsWith(".xml")) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 单元格引用（如 AB12）转换为从0开始的列号
+         */
+        private static int columnIndex(String ref) {
+            int index = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char ch = ref.charAt(i);
+                if (ch < 'A' || ch > 'Z') {
+                    break;
+                }
+                index = index * 26 + (ch - 'A' + 1);
+            }
+            return index - 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                sheet.close();
+            } catch (XMLStreamException e) {
+                // 忽略关闭异常
+            }
+            sheetStream.close();
+            zipFile.close();
+        }
+    }
+}
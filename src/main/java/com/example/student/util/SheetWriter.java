@@ -0,0 +1,282 @@
+package com.example.student.util;
+
+import com.example.student.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 表格逐行写出工具 - 支持 CSV、XLSX 和 NDJSON，边查询边写出，内存占用与数据量无关
+ */
+public abstract class SheetWriter implements Closeable {
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx"),
+        NDJSON("application/x-ndjson;charset=UTF-8", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return value == null ? CSV : Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw BusinessException.badRequest("不支持的导出格式: " + value);
+            }
+        }
+    }
+
+    /**
+     * 打开写出器，keys 为 NDJSON 字段名，titles 为 CSV/XLSX 表头
+     */
+    public static SheetWriter open(Format format, OutputStream out, List<String> keys, List<String> titles,
+                                   ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvWriter(out, titles);
+            case XLSX -> new XlsxWriter(out, titles);
+            case NDJSON -> new NdjsonWriter(out, keys, objectMapper);
+        };
+    }
+
+    /**
+     * 写出一行，值的顺序与表头一致
+     */
+    public abstract void writeRow(List<?> values) throws IOException;
+
+    protected static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return DATE_TIME_FORMAT.format(dateTime);
+        }
+        if (value instanceof TemporalAccessor) {
+            return value.toString();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * CSV 写出器，带 UTF-8 BOM 以便 Excel 正确识别中文
+     */
+    private static final class CsvWriter extends SheetWriter {
+
+        private final Writer writer;
+
+        private CsvWriter(OutputStream out, List<String> titles) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write('\uFEFF');
+            writeRow(titles);
+        }
+
+        @Override
+        public void writeRow(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String text = format(values.get(i));
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                        || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                    writer.write('"');
+                    writer.write(text.replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(text);
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * XLSX 写出器，直接写出最小 OOXML 包，工作表内容以内联字符串流式写入
+     */
+    private static final class XlsxWriter extends SheetWriter {
+
+        private final ZipOutputStream zip;
+        private final Writer writer;
+        private int rowIndex;
+
+        private XlsxWriter(OutputStream out, List<String> titles) throws IOException {
+            this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+            this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+            writeEntry("[Content_Types].xml", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+                    <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+                    <Default Extension="xml" ContentType="application/xml"/>\
+                    <Override PartName="/xl/workbook.xml" \
+                    ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>\
+                    <Override PartName="/xl/worksheets/sheet1.xml" \
+                    ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>\
+                    </Types>""");
+            writeEntry("_rels/.rels", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+                    <Relationship Id="rId1" \
+                    Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" \
+                    Target="xl/workbook.xml"/>\
+                    </Relationships>""");
+            writeEntry("xl/workbook.xml", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" \
+                    xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">\
+                    <sheets><sheet name="Sheet1" sheetId="1" r:id="rId1"/></sheets>\
+                    </workbook>""");
+            writeEntry("xl/_rels/workbook.xml.rels", """
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+                    <Relationship Id="rId1" \
+                    Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" \
+                    Target="worksheets/sheet1.xml"/>\
+                    </Relationships>""");
+
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+            writeRow(titles);
+        }
+
+        @Override
+        public void writeRow(List<?> values) throws IOException {
+            rowIndex++;
+            writer.write("<row r=\"" + rowIndex + "\">");
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value == null) {
+                    continue;
+                }
+                String ref = columnName(i) + rowIndex;
+                if (value instanceof Number) {
+                    writer.write("<c r=\"" + ref + "\"><v>" + format(value) + "</v></c>");
+                } else {
+                    writer.write("<c r=\"" + ref + "\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                    writer.write(escape(format(value)));
+                    writer.write("</t></is></c>");
+                }
+            }
+            writer.write("</row>");
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.write("</sheetData></worksheet>");
+            writer.flush();
+            zip.closeEntry();
+            zip.finish();
+        }
+
+        private void writeEntry(String name, String content) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            writer.write(content);
+            writer.flush();
+            zip.closeEntry();
+        }
+
+        /**
+         * 从0开始的列号转换为列名（如 0 -> A, 27 -> AB）
+         */
+        private static String columnName(int index) {
+            StringBuilder name = new StringBuilder();
+            for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+                name.insert(0, (char) ('A' + (i - 1) % 26));
+            }
+            return name.toString();
+        }
+
+        private static String escape(String text) {
+            StringBuilder escaped = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char ch = text.charAt(i);
+                switch (ch) {
+                    case '&' -> escaped.append("&amp;");
+                    case '<' -> escaped.append("&lt;");
+                    case '>' -> escaped.append("&gt;");
+                    case '"' -> escaped.append("&quot;");
+                    default -> {
+                        // XML 1.0 不允许的控制字符直接丢弃
+                        if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') {
+                            escaped.append(ch);
+                        }
+                    }
+                }
+            }
+            return escaped.toString();
+        }
+    }
+
+    /**
+     * NDJSON 写出器，每行一个 JSON 对象
+     */
+    private static final class NdjsonWriter extends SheetWriter {
+
+        private final JsonGenerator generator;
+        private final List<String> keys;
+
+        private NdjsonWriter(OutputStream out, List<String> keys, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            this.keys = keys;
+        }
+
+        @Override
+        public void writeRow(List<?> values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < keys.size(); i++) {
+                generator.writeObjectField(keys.get(i), values.get(i));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+            generator.close();
+        }
+    }
+}
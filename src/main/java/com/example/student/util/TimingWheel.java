@@ -0,0 +1,71 @@
+package com.example.student.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * 时间轮 - O(1) 登记过期时间，按时间刻度批量触发过期
+ * 调用方需定期调用 advance 推进时间轮
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final List<Queue<Timeout<K>>> slots;
+    private volatile long currentTick;
+
+    /**
+     * @param tickMillis     刻度（毫秒）
+     * @param maxDelayMillis 最大过期时长，用于确定槽位数
+     */
+    public TimingWheel(long tickMillis, long maxDelayMillis) {
+        this.tickMillis = tickMillis;
+        int size = (int) (maxDelayMillis / tickMillis) + 2;
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new ConcurrentLinkedQueue<>());
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * 登记键在 expireAt 时刻过期
+     * 与 advance 互斥，避免按推进前的 currentTick 落入刚被清空的槽位而晚一整轮才过期
+     */
+    public synchronized void schedule(K key, long expireAt) {
+        long tick = Math.max(expireAt / tickMillis + 1, currentTick + 1);
+        slots.get(slotIndex(tick)).offer(new Timeout<>(key, tick));
+    }
+
+    /**
+     * 推进到当前时刻，对所有到期的键回调 onExpire
+     * 超出一轮的键会保留在槽位中等待后续轮次
+     */
+    public synchronized void advance(long now, Consumer<K> onExpire) {
+        long target = now / tickMillis;
+        long from = Math.max(currentTick + 1, target - slots.size() + 1);
+        for (long tick = from; tick <= target; tick++) {
+            Queue<Timeout<K>> slot = slots.get(slotIndex(tick));
+            List<Timeout<K>> pending = new ArrayList<>();
+            Timeout<K> timeout;
+            while ((timeout = slot.poll()) != null) {
+                if (timeout.tick() <= target) {
+                    onExpire.accept(timeout.key());
+                } else {
+                    pending.add(timeout);
+                }
+            }
+            slot.addAll(pending);
+        }
+        currentTick = Math.max(currentTick, target);
+    }
+
+    private int slotIndex(long tick) {
+        return (int) (tick % slots.size());
+    }
+
+    private record Timeout<K>(K key, long tick) {
+    }
+}